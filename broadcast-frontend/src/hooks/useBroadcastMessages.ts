@@ -94,7 +94,10 @@ export const useBroadcastMessages = (options: UseBroadcastMessagesOptions) => {
         break;
 
       case 'CONNECTED':
-        // This event is now just for logging or UI status.
+        // The server replays missed events itself; it only asks for a refetch when it no longer holds them.
+        if (payload?.resync) {
+          fetchMessages();
+        }
         break;
 
       case 'HEARTBEAT':
@@ -106,6 +109,14 @@ export const useBroadcastMessages = (options: UseBroadcastMessagesOptions) => {
         });
         sseConnection.disconnect(false);
         break;
+      case 'RECONNECT': {
+        // The server could not keep up with this stream and closed it. Reconnect after the
+        // suggested delay; the dropped events are replayed, or a resync is requested, on CONNECTED.
+        const retryAfterMs = payload?.retryAfterMs ?? 1000;
+        sseConnection.disconnect(false);
+        setTimeout(() => sseConnection.connect(true), retryAfterMs);
+        break;
+      }
       case 'CONNECTION_LIMIT_REACHED': // NEW CASE
         toast({
           title: 'Connection Limit Reached',
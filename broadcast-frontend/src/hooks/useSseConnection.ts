@@ -20,7 +20,10 @@ interface SseConnection {
   reconnectAttempt: number;
 }
 
-const SSE_EVENT_TYPES = ['MESSAGE', 'READ_RECEIPT', 'MESSAGE_REMOVED', 'CONNECTED', 'HEARTBEAT', 'CONNECTION_LIMIT_REACHED'];
+// Events the server can replay on reconnect; only their ids are used to resume.
+const RESUMABLE_EVENT_TYPES = ['MESSAGE', 'READ_RECEIPT', 'MESSAGE_REMOVED'];
+
+const SSE_EVENT_TYPES = ['MESSAGE', 'READ_RECEIPT', 'MESSAGE_REMOVED', 'CONNECTED', 'HEARTBEAT', 'CONNECTION_LIMIT_REACHED', 'RECONNECT'];
 
 export const useSseConnection = (options: UseSseConnectionOptions) => {
   const {
@@ -65,6 +68,8 @@ export const useSseConnection = (options: UseSseConnectionOptions) => {
   const reconnectTimeoutRef = useRef<NodeJS.Timeout | null>(null);
   const connectionIdRef = useRef<string | null>(null);
   const isForceDisconnectRef = useRef(false);
+  // Survives reconnects so the server can replay only the events missed in between.
+  const lastEventIdRef = useRef<string | null>(null);
 
   // STEP 1: Add a new ref to track if the limit was reached.
   const isLimitReachedRef = useRef(false);
@@ -83,6 +88,10 @@ export const useSseConnection = (options: UseSseConnectionOptions) => {
         isLimitReachedRef.current = true;
       }
 
+      if (event.lastEventId && RESUMABLE_EVENT_TYPES.includes(eventType)) {
+        lastEventIdRef.current = event.lastEventId;
+      }
+
       console.log(`[SSE - ${userId}] Received event:`, { type: eventType, data });
       onMessageRef.current?.({ type: eventType, data: data });
     } catch (error) {
@@ -142,7 +151,8 @@ export const useSseConnection = (options: UseSseConnectionOptions) => {
 
     const newConnectionId = generateConnectionId();
     connectionIdRef.current = newConnectionId;
-    const sseUrl = `${baseUrl}/sse/connect?userId=${userId}&connectionId=${newConnectionId}`;
+    const resumeParam = lastEventIdRef.current ? `&lastEventId=${encodeURIComponent(lastEventIdRef.current)}` : '';
+    const sseUrl = `${baseUrl}/sse/connect?userId=${userId}&connectionId=${newConnectionId}${resumeParam}`;
     
     eventSourceRef.current = new EventSource(sseUrl, { withCredentials: true });
 
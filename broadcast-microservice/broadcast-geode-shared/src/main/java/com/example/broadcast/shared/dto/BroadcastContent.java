@@ -5,7 +5,6 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
-import java.io.Serializable;
 import java.util.List;
 
 // This is now a pure DTO for Geode.
@@ -13,7 +12,7 @@ import java.util.List;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-public class BroadcastContent implements Serializable {
+public class BroadcastContent {
     private Long id;
     private String correlationId;
     private String senderId;
@@ -29,4 +28,4 @@ public class BroadcastContent implements Serializable {
     private long updatedAtEpochMilli;
     private String status; // ACTIVE, EXPIRED, CANCELLED
     private boolean fireAndForget;
-}
\ No newline at end of file
+}
@@ -0,0 +1,21 @@
+package com.example.broadcast.shared.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/**
+ * The user-specific events scattered to one pod in a single flush window.
+ * Written as one entry so that the target pod receives the whole batch as one CQ event.
+ */
+@Getter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+public class GeodeSseBatch {
+    private String targetClusterPodName;
+    private List<GeodeSsePayload> payloads;
+}
@@ -1,18 +1,19 @@
 package com.example.broadcast.shared.dto;
 
-import java.io.Serializable;
 import java.util.Map;
 
+import lombok.AllArgsConstructor;
 import lombok.Getter;
-import lombok.RequiredArgsConstructor;
+import lombok.NoArgsConstructor;
 import lombok.ToString;
 
 
 @Getter
 @ToString
-@RequiredArgsConstructor
-public class GeodeSsePayload implements Serializable {
-    private final String targetClusterPodName;
-    private final MessageDeliveryEvent event;
-    private final Map<String, String> traceContext;
-}
\ No newline at end of file
+@NoArgsConstructor
+@AllArgsConstructor
+public class GeodeSsePayload {
+    private String targetClusterPodName;
+    private MessageDeliveryEvent event;
+    private Map<String, String> traceContext;
+}
@@ -4,13 +4,12 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
-import java.io.Serializable;
 
 @Data
 @Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
-public class MessageDeliveryEvent implements Serializable {
+public class MessageDeliveryEvent {
     private String eventId;
     private Long broadcastId;
     private String userId;
@@ -21,4 +20,4 @@ public class MessageDeliveryEvent implements Serializable {
     private String errorDetails;
     @Builder.Default
     private boolean fireAndForget = false;
-}
\ No newline at end of file
+}
@@ -0,0 +1,308 @@
+package com.example.broadcast.shared.dto.cache;
+
+import org.apache.geode.DataSerializable;
+import org.apache.geode.Delta;
+import org.apache.geode.InvalidDeltaException;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A user's cached inbox, held as parallel primitive arrays with one slot per message instead of a list of
+ * {@link UserMessageInbox} objects. The two status strings of a message are packed into one byte.
+ * <p>
+ * Changes made through {@link #add}, {@link #updateStatus} and {@link #remove} are recorded as a {@link Delta},
+ * so putting a changed inbox back ships only the changed messages to the servers and their redundant copies.
+ * The changes are keyed by broadcast id rather than by slot, so deltas from two pods touching the same inbox
+ * do not overwrite each other. An instance is meant to be read, changed and put back once: recorded changes
+ * are not reset after a put.
+ * <p>
+ * The inbox also carries the time it was last known to match the database, which readers use to decide when
+ * to check it for drift; see {@link #markVerified}.
+ * <p>
+ * Serialized with {@link DataSerializable} rather than PDX, because a delta can only be applied to the
+ * deserialized object and the servers keep PDX values serialized.
+ */
+public class CompactUserInbox implements DataSerializable, Delta {
+
+    /** The message id of an entry that has no user_broadcast_messages record, such as an 'ALL' broadcast. */
+    public static final long NO_MESSAGE_ID = 0L;
+
+    // The order of these arrays is the wire format of the packed status byte: append, never reorder.
+    private static final String[] DELIVERY_STATUSES = {"PENDING", "DELIVERED", "FAILED", "SUPERSEDED"};
+    private static final String[] READ_STATUSES = {"UNREAD", "READ"};
+    private static final int READ_SHIFT = 4;
+    private static final int DELIVERY_MASK = (1 << READ_SHIFT) - 1;
+
+    private static final byte OP_ADD = 1;
+    private static final byte OP_STATUS = 2;
+    private static final byte OP_REMOVE = 3;
+    private static final byte OP_VERIFIED = 4;
+
+    private int size;
+    private long[] messageIds;
+    private long[] broadcastIds;
+    private long[] createdAtEpochMilli;
+    private byte[] statuses;
+    private long verifiedAtEpochMilli;
+
+    private transient List<Change> changes;
+
+    // A verified change carries its time in createdAtEpochMilli.
+    private record Change(byte op, long messageId, long broadcastId, long createdAtEpochMilli, byte status) {}
+
+    public CompactUserInbox() {
+        this(0);
+    }
+
+    private CompactUserInbox(int capacity) {
+        messageIds = new long[capacity];
+        broadcastIds = new long[capacity];
+        createdAtEpochMilli = new long[capacity];
+        statuses = new byte[capacity];
+    }
+
+    /**
+     * @param verifiedAtEpochMilli When the entries were read from the database.
+     */
+    public static CompactUserInbox of(List<UserMessageInbox> entries, long verifiedAtEpochMilli) {
+        CompactUserInbox inbox = new CompactUserInbox(entries.size());
+        inbox.verifiedAtEpochMilli = verifiedAtEpochMilli;
+        for (UserMessageInbox entry : entries) {
+            inbox.append(messageId(entry.getMessageId()), entry.getBroadcastId(), entry.getCreatedAtEpochMilli(),
+                    pack(entry.getDeliveryStatus(), entry.getReadStatus()));
+        }
+        return inbox;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(long broadcastId) {
+        return indexOf(broadcastId) >= 0;
+    }
+
+    public long getVerifiedAtEpochMilli() {
+        return verifiedAtEpochMilli;
+    }
+
+    /**
+     * @return The messages as the objects the rest of the service works with, in slot order.
+     */
+    public List<UserMessageInbox> toEntries() {
+        List<UserMessageInbox> entries = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            byte status = statuses[i];
+            entries.add(new UserMessageInbox(
+                    messageIds[i] == NO_MESSAGE_ID ? null : messageIds[i],
+                    broadcastIds[i],
+                    DELIVERY_STATUSES[status & DELIVERY_MASK],
+                    READ_STATUSES[status >>> READ_SHIFT],
+                    createdAtEpochMilli[i]));
+        }
+        return entries;
+    }
+
+    /**
+     * Adds a message, or replaces the one with the same broadcast id.
+     */
+    public void add(UserMessageInbox entry) {
+        Change change = new Change(OP_ADD, messageId(entry.getMessageId()), entry.getBroadcastId(),
+                entry.getCreatedAtEpochMilli(), pack(entry.getDeliveryStatus(), entry.getReadStatus()));
+        apply(change);
+        record(change);
+    }
+
+    /**
+     * @return Whether the inbox holds the broadcast; nothing is recorded if it does not.
+     */
+    public boolean updateStatus(long broadcastId, String deliveryStatus, String readStatus) {
+        if (!contains(broadcastId)) {
+            return false;
+        }
+        Change change = new Change(OP_STATUS, NO_MESSAGE_ID, broadcastId, 0L, pack(deliveryStatus, readStatus));
+        apply(change);
+        record(change);
+        return true;
+    }
+
+    /**
+     * @return Whether the inbox held the broadcast; nothing is recorded if it did not.
+     */
+    public boolean remove(long broadcastId) {
+        if (!contains(broadcastId)) {
+            return false;
+        }
+        Change change = new Change(OP_REMOVE, NO_MESSAGE_ID, broadcastId, 0L, (byte) 0);
+        apply(change);
+        record(change);
+        return true;
+    }
+
+    /**
+     * Records that the inbox was found to match the database at the given time. Never moves the time back,
+     * so a slower pod finishing an older check cannot undo a newer one.
+     */
+    public void markVerified(long epochMilli) {
+        Change change = new Change(OP_VERIFIED, NO_MESSAGE_ID, 0L, epochMilli, (byte) 0);
+        apply(change);
+        record(change);
+    }
+
+    @Override
+    public boolean hasDelta() {
+        return changes != null && !changes.isEmpty();
+    }
+
+    @Override
+    public void toDelta(DataOutput out) throws IOException {
+        out.writeInt(changes.size());
+        for (Change change : changes) {
+            out.writeByte(change.op());
+            out.writeLong(change.broadcastId());
+            switch (change.op()) {
+                case OP_ADD -> {
+                    out.writeLong(change.messageId());
+                    out.writeLong(change.createdAtEpochMilli());
+                    out.writeByte(change.status());
+                }
+                case OP_STATUS -> out.writeByte(change.status());
+                case OP_VERIFIED -> out.writeLong(change.createdAtEpochMilli());
+                default -> {
+                }
+            }
+        }
+    }
+
+    @Override
+    public void fromDelta(DataInput in) throws IOException, InvalidDeltaException {
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            byte op = in.readByte();
+            long broadcastId = in.readLong();
+            Change change = switch (op) {
+                case OP_ADD -> new Change(op, in.readLong(), broadcastId, in.readLong(), in.readByte());
+                case OP_STATUS -> new Change(op, NO_MESSAGE_ID, broadcastId, 0L, in.readByte());
+                case OP_REMOVE -> new Change(op, NO_MESSAGE_ID, broadcastId, 0L, (byte) 0);
+                case OP_VERIFIED -> new Change(op, NO_MESSAGE_ID, broadcastId, in.readLong(), (byte) 0);
+                default -> throw new InvalidDeltaException("Unknown inbox change " + op);
+            };
+            apply(change);
+        }
+    }
+
+    @Override
+    public void toData(DataOutput out) throws IOException {
+        out.writeLong(verifiedAtEpochMilli);
+        out.writeInt(size);
+        for (int i = 0; i < size; i++) {
+            out.writeLong(messageIds[i]);
+            out.writeLong(broadcastIds[i]);
+            out.writeLong(createdAtEpochMilli[i]);
+            out.writeByte(statuses[i]);
+        }
+    }
+
+    @Override
+    public void fromData(DataInput in) throws IOException {
+        verifiedAtEpochMilli = in.readLong();
+        int count = in.readInt();
+        messageIds = new long[count];
+        broadcastIds = new long[count];
+        createdAtEpochMilli = new long[count];
+        statuses = new byte[count];
+        size = 0;
+        for (int i = 0; i < count; i++) {
+            append(in.readLong(), in.readLong(), in.readLong(), in.readByte());
+        }
+    }
+
+    private void apply(Change change) {
+        int index = indexOf(change.broadcastId());
+        switch (change.op()) {
+            case OP_ADD -> {
+                if (index < 0) {
+                    append(change.messageId(), change.broadcastId(), change.createdAtEpochMilli(), change.status());
+                } else {
+                    messageIds[index] = change.messageId();
+                    createdAtEpochMilli[index] = change.createdAtEpochMilli();
+                    statuses[index] = change.status();
+                }
+            }
+            case OP_STATUS -> {
+                if (index >= 0) {
+                    statuses[index] = change.status();
+                }
+            }
+            case OP_REMOVE -> {
+                if (index >= 0) {
+                    int tail = size - index - 1;
+                    System.arraycopy(messageIds, index + 1, messageIds, index, tail);
+                    System.arraycopy(broadcastIds, index + 1, broadcastIds, index, tail);
+                    System.arraycopy(createdAtEpochMilli, index + 1, createdAtEpochMilli, index, tail);
+                    System.arraycopy(statuses, index + 1, statuses, index, tail);
+                    size--;
+                }
+            }
+            case OP_VERIFIED -> verifiedAtEpochMilli = Math.max(verifiedAtEpochMilli, change.createdAtEpochMilli());
+            default -> throw new IllegalArgumentException("Unknown inbox change " + change.op());
+        }
+    }
+
+    private void record(Change change) {
+        if (changes == null) {
+            changes = new ArrayList<>();
+        }
+        changes.add(change);
+    }
+
+    private void append(long messageId, long broadcastId, long createdAt, byte status) {
+        if (size == broadcastIds.length) {
+            int capacity = Math.max(4, size * 2);
+            messageIds = Arrays.copyOf(messageIds, capacity);
+            broadcastIds = Arrays.copyOf(broadcastIds, capacity);
+            createdAtEpochMilli = Arrays.copyOf(createdAtEpochMilli, capacity);
+            statuses = Arrays.copyOf(statuses, capacity);
+        }
+        messageIds[size] = messageId;
+        broadcastIds[size] = broadcastId;
+        createdAtEpochMilli[size] = createdAt;
+        statuses[size] = status;
+        size++;
+    }
+
+    private int indexOf(long broadcastId) {
+        for (int i = 0; i < size; i++) {
+            if (broadcastIds[i] == broadcastId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static long messageId(Long messageId) {
+        return messageId == null ? NO_MESSAGE_ID : messageId;
+    }
+
+    private static byte pack(String deliveryStatus, String readStatus) {
+        return (byte) (codeOf(DELIVERY_STATUSES, deliveryStatus) | codeOf(READ_STATUSES, readStatus) << READ_SHIFT);
+    }
+
+    private static int codeOf(String[] values, String value) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i].equals(value)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown inbox status " + value);
+    }
+}
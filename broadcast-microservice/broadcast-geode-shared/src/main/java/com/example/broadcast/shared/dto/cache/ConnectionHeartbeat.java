@@ -2,14 +2,14 @@ package com.example.broadcast.shared.dto.cache;
 
 import lombok.AllArgsConstructor;
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 import lombok.With;
 
-import java.io.Serializable;
-
 @Getter
+@NoArgsConstructor
 @AllArgsConstructor
 @With // Useful for non-destructive updates
-public class ConnectionHeartbeat implements Serializable {
-    private final String userId;
-    private final long lastHeartbeatTimestamp;
-}
\ No newline at end of file
+public class ConnectionHeartbeat {
+    private String userId;
+    private long lastHeartbeatTimestamp;
+}
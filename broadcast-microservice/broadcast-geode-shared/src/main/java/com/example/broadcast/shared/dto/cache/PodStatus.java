@@ -0,0 +1,23 @@
+package com.example.broadcast.shared.dto.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * The load a user-service pod last published, keyed by {@code clusterName:podName}. The entry is also the pod's lease:
+ * its connections are considered alive while {@code updatedAt} keeps being renewed.
+ */
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class PodStatus {
+    private String podName;
+    private String clusterName;
+    private int connectionCount;
+    private int userCount;
+    private long bufferedBytes;
+    private long eventLoopLagMs;
+    private boolean admitting;
+    private long updatedAt;
+}
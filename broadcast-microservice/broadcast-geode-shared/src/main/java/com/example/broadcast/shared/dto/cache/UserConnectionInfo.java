@@ -3,19 +3,19 @@ package com.example.broadcast.shared.dto.cache;
 import lombok.AllArgsConstructor;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 import lombok.ToString;
 
-import java.io.Serializable;
-
 @Getter
 @ToString
+@NoArgsConstructor
 @AllArgsConstructor
 @EqualsAndHashCode
-public class UserConnectionInfo implements Serializable{
-    private final String userId;
-    private final String connectionId;
-    private final String podName;
-    private final String clusterName;
-    private final long connectedAtEpochMilli;
-    private final long lastActivityAtEpochMilli;
-}
\ No newline at end of file
+public class UserConnectionInfo {
+    private String userId;
+    private String connectionId;
+    private String podName;
+    private String clusterName;
+    private long connectedAtEpochMilli;
+    private long lastActivityAtEpochMilli;
+}
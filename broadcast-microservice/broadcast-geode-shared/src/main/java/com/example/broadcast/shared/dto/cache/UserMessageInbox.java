@@ -2,20 +2,20 @@ package com.example.broadcast.shared.dto.cache;
 
 import lombok.AllArgsConstructor;
 import lombok.Getter;
-
-import java.io.Serializable;
+import lombok.NoArgsConstructor;
 
 @Getter
+@NoArgsConstructor
 @AllArgsConstructor
-public class UserMessageInbox implements Serializable{
+public class UserMessageInbox {
      // ID of the user_broadcast_messages record
-    private final Long messageId; 
+    private Long messageId; 
 
     // Foreign key to the broadcast_messages record
-    private final Long broadcastId;
+    private Long broadcastId;
 
     // User-specific status fields
-    private final String deliveryStatus;
-    private final String readStatus;
-    private final long createdAtEpochMilli;
+    private String deliveryStatus;
+    private String readStatus;
+    private long createdAtEpochMilli;
 }
@@ -0,0 +1,18 @@
+package com.example.broadcast.shared.function;
+
+import org.apache.geode.pdx.PdxInstance;
+
+/**
+ * The servers run with PDX read-serialized, so values and arguments reach a function as
+ * {@link PdxInstance}s rather than domain objects.
+ */
+final class PdxValues {
+
+    private PdxValues() {
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> T toObject(Object value) {
+        return (T) (value instanceof PdxInstance pdxInstance ? pdxInstance.getObject() : value);
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.broadcast.shared.function;
+
+import com.example.broadcast.shared.dto.cache.ConnectionHeartbeat;
+import com.example.broadcast.shared.dto.cache.UserConnectionInfo;
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.execute.Function;
+import org.apache.geode.cache.execute.FunctionContext;
+import org.apache.geode.cache.execute.RegionFunctionContext;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Registers a connection on the member that owns the user's user-connections entry: checks the per-user
+ * connection limit, adds the connection and creates its connection-heartbeat entry, in one function call.
+ * Executed on the user-connections region with the user id as its only filter key and
+ * {@code [UserConnectionInfo, Integer maxConnectionsPerUser]} as its arguments.
+ * <p>
+ * Concurrent registrations for the same user still meet in a compare-and-set, but a retry is a local
+ * read on the owning member instead of another round trip from the client.
+ */
+public class RegisterUserConnectionFunction implements Function<Object[]> {
+
+    public static final String ID = "RegisterUserConnection";
+
+    private static final String CONNECTION_HEARTBEAT_REGION = "connection-heartbeat";
+    // Retries are local and cheap; the bound only guards against a livelock.
+    private static final int MAX_ATTEMPTS = 100;
+
+    /**
+     * @param attempts The compare-and-set attempts the registration took on the owning member.
+     */
+    public record Result(boolean registered, int attempts) implements Serializable {}
+
+    @Override
+    public String getId() {
+        return ID;
+    }
+
+    @Override
+    public boolean optimizeForWrite() {
+        return true;
+    }
+
+    @Override
+    public void execute(FunctionContext<Object[]> context) {
+        UserConnectionInfo connectionInfo = PdxValues.toObject(context.getArguments()[0]);
+        int maxConnectionsPerUser = (Integer) context.getArguments()[1];
+        // The other connections of the user stay PdxInstances; they are copied, never read.
+        Region<String, Map<String, Object>> userConnections = ((RegionFunctionContext) context).getDataSet();
+        String userId = connectionInfo.getUserId();
+        String connectionId = connectionInfo.getConnectionId();
+
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            Map<String, Object> oldConnections = userConnections.get(userId);
+            // A retried execution finds its own connection already registered and succeeds again.
+            if (oldConnections != null && !oldConnections.containsKey(connectionId)
+                    && oldConnections.size() >= maxConnectionsPerUser) {
+                context.getResultSender().lastResult(new Result(false, attempt));
+                return;
+            }
+
+            Map<String, Object> newConnections = (oldConnections == null) ? new HashMap<>() : new HashMap<>(oldConnections);
+            newConnections.put(connectionId, connectionInfo);
+            boolean success = (oldConnections == null)
+                    ? userConnections.putIfAbsent(userId, newConnections) == null
+                    : userConnections.replace(userId, oldConnections, newConnections);
+
+            if (success) {
+                Region<String, ConnectionHeartbeat> heartbeats = context.getCache().getRegion(CONNECTION_HEARTBEAT_REGION);
+                heartbeats.put(connectionId, new ConnectionHeartbeat(userId, connectionInfo.getConnectedAtEpochMilli()));
+                context.getResultSender().lastResult(new Result(true, attempt));
+                return;
+            }
+        }
+        context.getResultSender().lastResult(new Result(false, MAX_ATTEMPTS));
+    }
+}
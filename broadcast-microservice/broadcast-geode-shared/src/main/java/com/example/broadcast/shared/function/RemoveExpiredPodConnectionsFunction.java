@@ -0,0 +1,95 @@
+package com.example.broadcast.shared.function;
+
+import com.example.broadcast.shared.dto.cache.ConnectionHeartbeat;
+import com.example.broadcast.shared.dto.cache.PodStatus;
+import com.example.broadcast.shared.dto.cache.UserConnectionInfo;
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.execute.Function;
+import org.apache.geode.cache.execute.FunctionContext;
+import org.apache.geode.cache.execute.RegionFunctionContext;
+import org.apache.geode.cache.partition.PartitionRegionHelper;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Removes, on the servers, the connections held by user-service pods whose lease has expired, together with
+ * their connection-heartbeat entries. Executed on the user-connections region with the lease threshold as its
+ * argument; each member sweeps the data it hosts and returns the number of connections it removed.
+ * <p>
+ * A pod's lease is its pod-status entry: it is live while its {@code updatedAt} is at or after the threshold.
+ * A user entry is rewritten with a compare-and-set, so a registration that races with the sweep is kept and
+ * the connections it skipped are picked up by the next sweep.
+ */
+public class RemoveExpiredPodConnectionsFunction implements Function<Long> {
+
+    public static final String ID = "RemoveExpiredPodConnections";
+
+    private static final String POD_STATUS_REGION = "pod-status";
+    private static final String CONNECTION_HEARTBEAT_REGION = "connection-heartbeat";
+    private static final int REMOVE_BATCH_SIZE = 1000;
+
+    @Override
+    public String getId() {
+        return ID;
+    }
+
+    @Override
+    public boolean optimizeForWrite() {
+        return true;
+    }
+
+    @Override
+    public void execute(FunctionContext<Long> context) {
+        long leaseThreshold = context.getArguments();
+        RegionFunctionContext regionContext = (RegionFunctionContext) context;
+        // Connection values stay PdxInstances; they are only deserialized to read their pod.
+        Region<String, Map<String, Object>> userConnections = regionContext.getDataSet();
+        if (PartitionRegionHelper.isPartitionedRegion(userConnections)) {
+            userConnections = PartitionRegionHelper.getLocalDataForContext(regionContext);
+        }
+
+        Set<String> livePods = new HashSet<>();
+        Region<String, Object> podStatus = context.getCache().getRegion(POD_STATUS_REGION);
+        for (Object value : podStatus.values()) {
+            PodStatus lease = PdxValues.toObject(value);
+            if (lease.getUpdatedAt() >= leaseThreshold) {
+                livePods.add(lease.getClusterName() + ":" + lease.getPodName());
+            }
+        }
+
+        List<String> removedConnectionIds = new ArrayList<>();
+        for (String userId : userConnections.keySet()) {
+            Map<String, Object> connections = userConnections.get(userId);
+            if (connections == null) {
+                continue;
+            }
+            Map<String, Object> remaining = new HashMap<>(connections);
+            remaining.values().removeIf(value -> {
+                UserConnectionInfo connection = PdxValues.toObject(value);
+                return !livePods.contains(connection.getClusterName() + ":" + connection.getPodName());
+            });
+            if (remaining.size() == connections.size()) {
+                continue;
+            }
+            boolean replaced = remaining.isEmpty()
+                    ? userConnections.remove(userId, connections)
+                    : userConnections.replace(userId, connections, remaining);
+            if (replaced) {
+                connections.keySet().stream()
+                        .filter(connectionId -> !remaining.containsKey(connectionId))
+                        .forEach(removedConnectionIds::add);
+            }
+        }
+
+        Region<String, ConnectionHeartbeat> heartbeats = context.getCache().getRegion(CONNECTION_HEARTBEAT_REGION);
+        for (int i = 0; i < removedConnectionIds.size(); i += REMOVE_BATCH_SIZE) {
+            heartbeats.removeAll(removedConnectionIds.subList(i, Math.min(i + REMOVE_BATCH_SIZE, removedConnectionIds.size())));
+        }
+        context.getResultSender().lastResult(removedConnectionIds.size());
+    }
+}
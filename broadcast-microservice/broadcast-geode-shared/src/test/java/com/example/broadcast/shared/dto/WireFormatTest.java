@@ -0,0 +1,180 @@
+package com.example.broadcast.shared.dto;
+
+import com.example.broadcast.shared.dto.cache.ConnectionHeartbeat;
+import com.example.broadcast.shared.dto.cache.UserConnectionInfo;
+import org.apache.geode.DataSerializer;
+import org.apache.geode.cache.Cache;
+import org.apache.geode.cache.CacheFactory;
+import org.apache.geode.pdx.ReflectionBasedAutoSerializer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the PDX format the Geode DTOs are stored in with the {@code java.io} serialization they used before.
+ * <p>
+ * The {@code java.io} side serializes copies of the DTOs with the same fields that implement {@link Serializable},
+ * as the DTOs themselves did. Their class names are those of nested classes here, a few dozen characters longer
+ * than the originals', which the baseline carries once per class descriptor. A PDX value carries only a type id;
+ * its type is registered with the cluster once, so it is not part of the per-value size.
+ * Sizes are asserted; the time per serialization and deserialization is printed.
+ */
+class WireFormatTest {
+
+    // The same pattern as the client and server caches.
+    private static final String PDX_CLASSES = "com\\.example\\.broadcast\\.shared\\.dto\\.(?!cache\\.CompactUserInbox$).*";
+    private static final int WARMUP_ITERATIONS = 20_000;
+    private static final int TIMED_ITERATIONS = 50_000;
+    private static final long NOW = 1_700_000_000_000L;
+
+    private static Cache cache;
+
+    @BeforeAll
+    static void createLonerCache() {
+        cache = new CacheFactory()
+                .set("mcast-port", "0")
+                .set("locators", "")
+                .set("log-level", "warn")
+                .setPdxSerializer(new ReflectionBasedAutoSerializer(PDX_CLASSES))
+                .create();
+    }
+
+    @AfterAll
+    static void closeCache() {
+        if (cache != null) {
+            cache.close();
+        }
+    }
+
+    @Test
+    void userConnectionInfo() throws Exception {
+        compare("UserConnectionInfo",
+                new UserConnectionInfo("user-001", "3f2b8c1e-6d4a-4f0e-9b7a-2c5d8e1f0a3b", "user-service-7d9f8-x2k4q", "cluster-a", NOW, NOW),
+                new JavaIo.UserConnectionInfo("user-001", "3f2b8c1e-6d4a-4f0e-9b7a-2c5d8e1f0a3b", "user-service-7d9f8-x2k4q", "cluster-a", NOW, NOW));
+    }
+
+    @Test
+    void connectionHeartbeat() throws Exception {
+        compare("ConnectionHeartbeat",
+                new ConnectionHeartbeat("user-001", NOW),
+                new JavaIo.ConnectionHeartbeat("user-001", NOW));
+    }
+
+    @Test
+    void broadcastContent() throws Exception {
+        String content = "Scheduled maintenance tonight from 22:00 to 23:00 UTC. Save your work before then.";
+        compare("BroadcastContent",
+                new BroadcastContent(42L, "corr-42", "admin-1", "Operations", content, "SELECTED", targetIds(),
+                        "HIGH", "MAINTENANCE", NOW, NOW + 86_400_000L, NOW, NOW, "ACTIVE", false),
+                new JavaIo.BroadcastContent(42L, "corr-42", "admin-1", "Operations", content, "SELECTED", targetIds(),
+                        "HIGH", "MAINTENANCE", NOW, NOW + 86_400_000L, NOW, NOW, "ACTIVE", false));
+    }
+
+    @Test
+    void messageDeliveryEvent() throws Exception {
+        compare("MessageDeliveryEvent", deliveryEvent(), javaIoDeliveryEvent());
+    }
+
+    @Test
+    void geodeSsePayload() throws Exception {
+        Map<String, String> traceContext = new HashMap<>();
+        traceContext.put("traceparent", "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01");
+        compare("GeodeSsePayload",
+                new GeodeSsePayload("cluster-a:user-service-7d9f8-x2k4q", deliveryEvent(), traceContext),
+                new JavaIo.GeodeSsePayload("cluster-a:user-service-7d9f8-x2k4q", javaIoDeliveryEvent(), traceContext));
+    }
+
+    // Mutable collections, as the services build them; the immutable List.of/Map.of types serialize differently.
+    private static List<String> targetIds() {
+        return new ArrayList<>(List.of("user-001", "user-002"));
+    }
+
+    private static MessageDeliveryEvent deliveryEvent() {
+        return new MessageDeliveryEvent("evt-42-user-001", 42L, "user-001", "corr-42", "CREATED", NOW, "New broadcast", null, false);
+    }
+
+    private static JavaIo.MessageDeliveryEvent javaIoDeliveryEvent() {
+        return new JavaIo.MessageDeliveryEvent("evt-42-user-001", 42L, "user-001", "corr-42", "CREATED", NOW, "New broadcast", null, false);
+    }
+
+    private static void compare(String name, Object dto, Serializable javaIoCopy) throws Exception {
+        byte[] pdx = pdx(dto);
+        byte[] javaIo = javaIo(javaIoCopy);
+
+        assertThat(DataSerializer.<Object>readObject(new DataInputStream(new ByteArrayInputStream(pdx)))).isInstanceOf(dto.getClass());
+        assertThat(pdx.length).as("PDX size of %s", name).isLessThan(javaIo.length);
+
+        double pdxNanos = timePerRoundTrip(() -> DataSerializer.readObject(new DataInputStream(new ByteArrayInputStream(pdx(dto)))));
+        double javaIoNanos = timePerRoundTrip(() -> new ObjectInputStream(new ByteArrayInputStream(javaIo(javaIoCopy))).readObject());
+        System.out.printf("%-22s PDX %4d bytes %8.0f ns | java.io %4d bytes %8.0f ns (serialize + deserialize)%n",
+                name, pdx.length, pdxNanos, javaIo.length, javaIoNanos);
+    }
+
+    private static byte[] pdx(Object dto) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataSerializer.writeObject(dto, new DataOutputStream(bytes));
+        return bytes.toByteArray();
+    }
+
+    private static byte[] javaIo(Serializable dto) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(dto);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static double timePerRoundTrip(RoundTrip roundTrip) throws Exception {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            roundTrip.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < TIMED_ITERATIONS; i++) {
+            roundTrip.run();
+        }
+        return (double) (System.nanoTime() - start) / TIMED_ITERATIONS;
+    }
+
+    @FunctionalInterface
+    private interface RoundTrip {
+        Object run() throws Exception;
+    }
+
+    /**
+     * The DTOs as they were before PDX: the same fields, serialized with {@code java.io}.
+     */
+    static final class JavaIo {
+
+        record UserConnectionInfo(String userId, String connectionId, String podName, String clusterName,
+                                  long connectedAtEpochMilli, long lastActivityAtEpochMilli) implements Serializable {}
+
+        record ConnectionHeartbeat(String userId, long lastHeartbeatTimestamp) implements Serializable {}
+
+        record BroadcastContent(Long id, String correlationId, String senderId, String senderName, String content,
+                                String targetType, List<String> targetIds, String priority, String category,
+                                long scheduledAtEpochMilli, long expiresAtEpochMilli, long createdAtEpochMilli,
+                                long updatedAtEpochMilli, String status, boolean fireAndForget) implements Serializable {}
+
+        record MessageDeliveryEvent(String eventId, Long broadcastId, String userId, String correlationId, String eventType,
+                                    long timestampEpochMilli, String message, String errorDetails,
+                                    boolean fireAndForget) implements Serializable {}
+
+        record GeodeSsePayload(String targetClusterPodName, MessageDeliveryEvent event,
+                               Map<String, String> traceContext) implements Serializable {}
+    }
+}
@@ -0,0 +1,265 @@
+package com.example.broadcast.shared.dto.cache;
+
+import org.apache.geode.DataSerializer;
+import org.apache.geode.InvalidDeltaException;
+import org.apache.geode.cache.Cache;
+import org.apache.geode.cache.CacheFactory;
+import org.apache.geode.pdx.ReflectionBasedAutoSerializer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CompactUserInboxTest {
+
+    private static final long VERIFIED_AT = 1_700_000_000_000L;
+    // The same pattern as the client and server caches.
+    private static final String PDX_CLASSES = "com\\.example\\.broadcast\\.shared\\.dto\\.(?!cache\\.CompactUserInbox$).*";
+
+    private static Cache cache;
+
+    @BeforeAll
+    static void createLonerCache() {
+        cache = new CacheFactory()
+                .set("mcast-port", "0")
+                .set("locators", "")
+                .set("log-level", "warn")
+                .setPdxSerializer(new ReflectionBasedAutoSerializer(PDX_CLASSES))
+                .create();
+    }
+
+    @AfterAll
+    static void closeCache() {
+        if (cache != null) {
+            cache.close();
+        }
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+        "PENDING, UNREAD",
+        "PENDING, READ",
+        "DELIVERED, UNREAD",
+        "DELIVERED, READ",
+        "FAILED, UNREAD",
+        "FAILED, READ",
+        "SUPERSEDED, UNREAD",
+        "SUPERSEDED, READ",
+    })
+    void everyStatusPairSurvivesPacking(String deliveryStatus, String readStatus) {
+        CompactUserInbox inbox = CompactUserInbox.of(List.of(entry(1L, 10L, deliveryStatus, readStatus)), VERIFIED_AT);
+
+        UserMessageInbox unpacked = inbox.toEntries().get(0);
+        assertThat(unpacked.getDeliveryStatus()).isEqualTo(deliveryStatus);
+        assertThat(unpacked.getReadStatus()).isEqualTo(readStatus);
+    }
+
+    @Test
+    void entriesComeBackInSlotOrder() {
+        List<UserMessageInbox> entries = List.of(
+                entry(1L, 10L, "DELIVERED", "UNREAD"),
+                entry(null, 20L, "DELIVERED", "UNREAD"),
+                entry(3L, 30L, "PENDING", "UNREAD"));
+
+        CompactUserInbox inbox = CompactUserInbox.of(entries, VERIFIED_AT);
+
+        assertThat(inbox.toEntries()).usingRecursiveFieldByFieldElementComparator().containsExactlyElementsOf(entries);
+        assertThat(inbox.getVerifiedAtEpochMilli()).isEqualTo(VERIFIED_AT);
+        assertThat(inbox.hasDelta()).isFalse();
+    }
+
+    @Test
+    void unknownStatusesAreRejected() {
+        assertThatThrownBy(() -> CompactUserInbox.of(List.of(entry(1L, 10L, "BOGUS", "UNREAD")), VERIFIED_AT))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("BOGUS");
+
+        CompactUserInbox inbox = CompactUserInbox.of(List.of(entry(1L, 10L, "DELIVERED", "UNREAD")), VERIFIED_AT);
+        assertThatThrownBy(() -> inbox.updateStatus(10L, "DELIVERED", "SKIMMED"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("SKIMMED");
+        assertThat(inbox.toEntries().get(0).getReadStatus()).isEqualTo("UNREAD");
+        assertThat(inbox.hasDelta()).isFalse();
+    }
+
+    @Test
+    void changesToMissingBroadcastsAreNotRecorded() {
+        CompactUserInbox inbox = CompactUserInbox.of(List.of(entry(1L, 10L, "DELIVERED", "UNREAD")), VERIFIED_AT);
+
+        assertThat(inbox.updateStatus(99L, "DELIVERED", "READ")).isFalse();
+        assertThat(inbox.remove(99L)).isFalse();
+        assertThat(inbox.hasDelta()).isFalse();
+    }
+
+    @Test
+    void deltaReplaysEveryChangeOnAnotherCopy() throws IOException {
+        CompactUserInbox server = copyOf(inbox(10L, 20L, 30L));
+        CompactUserInbox client = copyOf(server);
+
+        client.add(entry(4L, 40L, "PENDING", "UNREAD"));
+        client.updateStatus(10L, "DELIVERED", "READ");
+        client.remove(20L);
+        client.markVerified(VERIFIED_AT + 1000);
+        applyDelta(client, server);
+
+        assertThat(server.toEntries()).usingRecursiveFieldByFieldElementComparator().containsExactlyElementsOf(client.toEntries());
+        assertThat(server.getVerifiedAtEpochMilli()).isEqualTo(VERIFIED_AT + 1000);
+    }
+
+    @Test
+    void deltasFromTwoPodsDoNotOverwriteEachOther() throws IOException {
+        CompactUserInbox server = copyOf(inbox(10L, 20L, 30L));
+        CompactUserInbox podA = copyOf(server);
+        CompactUserInbox podB = copyOf(server);
+
+        podA.updateStatus(10L, "DELIVERED", "READ");
+        podB.remove(30L);
+        applyDelta(podA, server);
+        applyDelta(podB, server);
+
+        assertThat(server.size()).isEqualTo(2);
+        assertThat(server.toEntries().get(0).getReadStatus()).isEqualTo("READ");
+        assertThat(server.contains(30L)).isFalse();
+    }
+
+    @Test
+    void verificationTimeNeverMovesBack() throws IOException {
+        CompactUserInbox server = copyOf(inbox(10L));
+        CompactUserInbox stale = copyOf(server);
+
+        server.markVerified(VERIFIED_AT + 2000);
+        stale.markVerified(VERIFIED_AT + 1000);
+        applyDelta(stale, server);
+
+        assertThat(server.getVerifiedAtEpochMilli()).isEqualTo(VERIFIED_AT + 2000);
+    }
+
+    @Test
+    void addReplacesTheMessageOfTheSameBroadcast() {
+        CompactUserInbox inbox = inbox(10L);
+
+        inbox.add(entry(7L, 10L, "PENDING", "UNREAD"));
+
+        assertThat(inbox.size()).isEqualTo(1);
+        assertThat(inbox.toEntries().get(0).getMessageId()).isEqualTo(7L);
+        assertThat(inbox.toEntries().get(0).getDeliveryStatus()).isEqualTo("PENDING");
+    }
+
+    @Test
+    void unknownDeltaOperationsAreRejected() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(1);
+        out.writeByte(99);
+        out.writeLong(10L);
+
+        CompactUserInbox inbox = inbox(10L);
+        assertThatThrownBy(() -> inbox.fromDelta(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))))
+                .isInstanceOf(InvalidDeltaException.class);
+    }
+
+    /**
+     * The size of the cached value at 50 messages against the list of entries it replaces, stored with PDX and,
+     * before that, with {@code java.io}; and the size of the delta a status change ships to the redundant copies.
+     * The compact value is 25 bytes per message plus a 12-byte header, and a status change is 14 bytes.
+     */
+    @Test
+    void fiftyMessageInboxAndOneStatusChangeSizes() throws IOException {
+        long[] broadcastIds = new long[50];
+        for (int i = 0; i < broadcastIds.length; i++) {
+            broadcastIds[i] = 1000L + i;
+        }
+        CompactUserInbox inbox = inbox(broadcastIds);
+        List<UserMessageInbox> entries = inbox.toEntries();
+
+        int compact = serialize(inbox).length;
+        int pdxList = pdx(new ArrayList<>(entries)).length;
+        int javaIoList = javaIo(JavaIoEntry.copyOf(entries)).length;
+        System.out.printf("50-message inbox: CompactUserInbox %d bytes | PDX list %d bytes | java.io list %d bytes%n",
+                compact, pdxList, javaIoList);
+
+        assertThat(compact).isEqualTo(12 + 50 * 25);
+        assertThat(compact).isLessThan(pdxList).isLessThan(javaIoList);
+
+        inbox.updateStatus(1010L, "DELIVERED", "READ");
+        assertThat(delta(inbox).length).isEqualTo(14);
+    }
+
+    private static CompactUserInbox inbox(long... broadcastIds) {
+        List<UserMessageInbox> entries = new ArrayList<>();
+        for (long broadcastId : broadcastIds) {
+            entries.add(entry(broadcastId + 1, broadcastId, "DELIVERED", "UNREAD"));
+        }
+        return CompactUserInbox.of(entries, VERIFIED_AT);
+    }
+
+    private static UserMessageInbox entry(Long messageId, long broadcastId, String deliveryStatus, String readStatus) {
+        return new UserMessageInbox(messageId, broadcastId, deliveryStatus, readStatus, VERIFIED_AT - broadcastId);
+    }
+
+    private static byte[] serialize(CompactUserInbox inbox) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        inbox.toData(new DataOutputStream(bytes));
+        return bytes.toByteArray();
+    }
+
+    private static byte[] pdx(Object value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataSerializer.writeObject(value, new DataOutputStream(bytes));
+        return bytes.toByteArray();
+    }
+
+    private static byte[] javaIo(Serializable value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(value);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static CompactUserInbox copyOf(CompactUserInbox inbox) throws IOException {
+        CompactUserInbox copy = new CompactUserInbox();
+        copy.fromData(new DataInputStream(new ByteArrayInputStream(serialize(inbox))));
+        return copy;
+    }
+
+    private static byte[] delta(CompactUserInbox inbox) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        inbox.toDelta(new DataOutputStream(bytes));
+        return bytes.toByteArray();
+    }
+
+    private static void applyDelta(CompactUserInbox from, CompactUserInbox to) throws IOException {
+        to.fromDelta(new DataInputStream(new ByteArrayInputStream(delta(from))));
+    }
+
+    /**
+     * An inbox entry as it was before PDX: the same fields, serialized with {@code java.io}.
+     */
+    private record JavaIoEntry(Long messageId, Long broadcastId, String deliveryStatus, String readStatus,
+                               long createdAtEpochMilli) implements Serializable {
+
+        static ArrayList<JavaIoEntry> copyOf(List<UserMessageInbox> entries) {
+            ArrayList<JavaIoEntry> copies = new ArrayList<>(entries.size());
+            for (UserMessageInbox entry : entries) {
+                copies.add(new JavaIoEntry(entry.getMessageId(), entry.getBroadcastId(), entry.getDeliveryStatus(),
+                        entry.getReadStatus(), entry.getCreatedAtEpochMilli()));
+            }
+            return copies;
+        }
+    }
+}
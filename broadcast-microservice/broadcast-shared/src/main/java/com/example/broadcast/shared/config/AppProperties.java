@@ -2,6 +2,7 @@ package com.example.broadcast.shared.config;
 
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
 import lombok.Data;
 import org.springframework.validation.annotation.Validated;
 
@@ -19,6 +20,7 @@ public class AppProperties {
     private final H2Console h2Console = new H2Console();
     private final Service service = new Service();
     private final Geode geode = new Geode();
+    private final Delivery delivery = new Delivery();
 
     @Data
     public static class Service{
@@ -43,15 +45,14 @@ public class AppProperties {
 
         @Data
         public static class Regions {
-            private final UserMessagesInbox userMessagesInbox = new UserMessagesInbox();
+            private final BroadcastContent broadcastContent = new BroadcastContent();
 
             @Data
-            public static class UserMessagesInbox {
-                private boolean cleanupEnabled = false;
+            public static class BroadcastContent {
                 @Positive
-                private int cleanupThreshold = 100000;
+                private int nearCacheMaxEntries = 10000;
                 @Positive
-                private long cleanupJobRateMs = 300000L;
+                private int nearCacheTtlSeconds = 600;
             }
         }
 
@@ -70,6 +71,77 @@ public class AppProperties {
         private long clientTimeoutThreshold = 60000L;
         @Positive
         private long heartbeatInterval = 30000L;
+        @Positive
+        private int heartbeatWheelSlots = 10;
+        @Positive
+        private int sendQueueCapacity = 256;
+        private OverflowPolicy overflowPolicy = OverflowPolicy.COALESCE_HEARTBEATS;
+        @PositiveOrZero
+        private long batchWindow = 0L;
+        @Positive
+        private int maxBatchSize = 16;
+        private boolean compressionEnabled = false;
+        @Positive
+        private long scatterFlushWindow = 20L;
+        @Positive
+        private int scatterMaxBatchSize = 1000;
+        @Positive
+        private long cqCleanupInterval = 200L;
+        @Positive
+        private long userPodIndexReconcileInterval = 60000L;
+        @Positive
+        private int dispatchLanes = 16;
+        @Positive
+        private int dispatchLaneCapacity = 1024;
+        @Positive
+        private long drainWindow = 20000L;
+        @Positive
+        private int drainWaves = 10;
+        @Positive
+        private int admissionMaxConnections = 20000;
+        @Positive
+        private long admissionMaxBufferedBytes = 256 * 1024 * 1024L;
+        @Positive
+        private long admissionMaxEventLoopLag = 250L;
+        @Positive
+        private long podStatusInterval = 5000L;
+        @Positive
+        private int replayCapacity = 100;
+        @Positive
+        private long replayMaxBytesPerUser = 256 * 1024L;
+        @Positive
+        private long replayMaxPodBytes = 64 * 1024 * 1024L;
+        @Positive
+        private long replayRetention = 120000L;
+        @Positive
+        private long inboxVerifyInterval = 300000L;
+
+        /**
+         * What a connection gives up when its send queue is full.
+         */
+        public enum OverflowPolicy {
+            /** Drop the oldest queued event to make room for the new one. */
+            DROP_OLDEST,
+            /** Keep at most one pending heartbeat and drop queued heartbeats first; disconnect if only real events remain. */
+            COALESCE_HEARTBEATS,
+            /** Close the connection with a resume hint so the client reconnects and resynchronizes. */
+            DISCONNECT
+        }
+    }
+
+    @Data
+    public static class Delivery {
+        private Bus bus = Bus.GEODE;
+
+        /**
+         * How events are carried from the orchestrator to the pod holding the user's SSE connection.
+         */
+        public enum Bus {
+            /** Replicated Geode regions, filtered to each pod by continuous queries. */
+            GEODE,
+            /** One Kafka topic per pod, plus one topic every pod reads for pod-wide events. */
+            KAFKA
+        }
     }
 
     @Data
@@ -90,6 +162,8 @@ public class AppProperties {
         public static class Topic {
             @NotBlank
             private String nameOrchestration = "broadcast-orchestration";
+            @NotBlank
+            private String namePodDeliveryPrefix = "broadcast-pod-delivery";
             @Positive
             private int partitions = 1;
             @Positive
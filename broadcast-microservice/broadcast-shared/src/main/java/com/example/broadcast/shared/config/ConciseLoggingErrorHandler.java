@@ -4,7 +4,7 @@ import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.ConsumerRecordRecoverer;
 import org.springframework.kafka.listener.DefaultErrorHandler;
 import org.springframework.kafka.listener.MessageListenerContainer;
 import org.springframework.util.backoff.BackOff;
@@ -18,8 +18,8 @@ public class ConciseLoggingErrorHandler extends DefaultErrorHandler {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ConciseLoggingErrorHandler.class);
 
-    public ConciseLoggingErrorHandler(DeadLetterPublishingRecoverer deadLetterPublishingRecoverer, BackOff backOff) {
-        super(deadLetterPublishingRecoverer, backOff);
+    public ConciseLoggingErrorHandler(ConsumerRecordRecoverer recoverer, BackOff backOff) {
+        super(recoverer, backOff);
     }
 
     @Override
@@ -0,0 +1,15 @@
+package com.example.broadcast.shared.config;
+
+/**
+ * Implemented by a bean that acknowledges Kafka records only after work it has deferred is done.
+ * The error handler commits the offset of a record it has sent to the dead letter topic, so it first
+ * has the deferred work done; otherwise that commit would pass records whose work was never done.
+ */
+public interface DeferredAcknowledgments {
+
+    /**
+     * Does the deferred work and acknowledges its records.
+     * @throws RuntimeException If the work fails; the failed record is then retried instead of recovered.
+     */
+    void flush();
+}
@@ -13,6 +13,7 @@ import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.errors.RecordDeserializationException;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -20,6 +21,7 @@ import org.springframework.kafka.KafkaException;
 import org.springframework.kafka.annotation.EnableKafka;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.listener.CommonLoggingErrorHandler;
+import org.springframework.kafka.listener.ConsumerAwareRecordRecoverer;
 import org.springframework.kafka.config.TopicBuilder;
 import org.springframework.kafka.core.*;
 import org.springframework.kafka.listener.ContainerProperties;
@@ -107,9 +109,15 @@ public class KafkaConfig {
     }
 
     @Bean
-    public DefaultErrorHandler errorHandler(DeadLetterPublishingRecoverer deadLetterPublishingRecoverer) {
+    public DefaultErrorHandler errorHandler(DeadLetterPublishingRecoverer deadLetterPublishingRecoverer,
+        ObjectProvider<DeferredAcknowledgments> deferredAcknowledgments) {
         FixedBackOff backOff = new FixedBackOff(1000L, 2L);
-        DefaultErrorHandler errorHandler = new ConciseLoggingErrorHandler(deadLetterPublishingRecoverer, backOff);
+        // The recovered record's offset is committed, so deferred acknowledgments of earlier records go first.
+        ConsumerAwareRecordRecoverer recoverer = (record, consumer, exception) -> {
+            deferredAcknowledgments.orderedStream().forEach(DeferredAcknowledgments::flush);
+            deadLetterPublishingRecoverer.accept(record, consumer, exception);
+        };
+        DefaultErrorHandler errorHandler = new ConciseLoggingErrorHandler(recoverer, backOff);
         
         errorHandler.addNotRetryableExceptions(RecordDeserializationException.class);
         
@@ -15,23 +15,28 @@ public class NettyConfig {
 
     private final AppProperties appProperties;
 
+    /**
+     * The event loops the Netty server runs on. Exposed as a bean so that other components
+     * (e.g. the SSE admission control) can probe how responsive the loops are.
+     */
+    @Bean(destroyMethod = "dispose")
+    public LoopResources serverLoopResources() {
+        // Create a new LoopResources that mimics the default behavior (using a properly sized
+        // thread pool based on CPU cores) but with our custom thread prefix.
+        return LoopResources.create(
+            appProperties.getService().getName(),
+            LoopResources.DEFAULT_IO_WORKER_COUNT, // This ensures a properly sized pool
+            true
+        );
+    }
+
     @Bean
-    public WebServerFactoryCustomizer<NettyReactiveWebServerFactory> nettyWebServerCustomizer() {
+    public WebServerFactoryCustomizer<NettyReactiveWebServerFactory> nettyWebServerCustomizer(LoopResources serverLoopResources) {
         return factory -> {
-            String threadPrefix = appProperties.getService().getName();
-
-            // Create a new LoopResources that mimics the default behavior (using a properly sized
-            // thread pool based on CPU cores) but with our custom thread prefix.
-            LoopResources loopResources = LoopResources.create(
-                threadPrefix,
-                LoopResources.DEFAULT_IO_WORKER_COUNT, // This ensures a properly sized pool
-                true
-            );
-
             // Add a customizer to the factory to use our configured loop resources.
-            factory.addServerCustomizers(server -> server.runOn(loopResources));
+            factory.addServerCustomizers(server -> server.runOn(serverLoopResources));
 
-            log.info("Customized Netty server with thread prefix '{}' and default worker count.", threadPrefix);
+            log.info("Customized Netty server with thread prefix '{}' and default worker count.", appProperties.getService().getName());
         };
     }
 }
\ No newline at end of file
@@ -0,0 +1,25 @@
+package com.example.broadcast.shared.exception;
+
+import lombok.Getter;
+
+/**
+ * Custom unchecked exception to be thrown when a pod refuses a new connection, for example
+ * while it is draining for shutdown or already at capacity. The client is told when it may try
+ * again and, if one is known, which pod is more likely to accept it.
+ */
+@Getter
+public class ConnectionRejectedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+    private final String podHint;
+
+    public ConnectionRejectedException(String message, long retryAfterSeconds) {
+        this(message, retryAfterSeconds, null);
+    }
+
+    public ConnectionRejectedException(String message, long retryAfterSeconds, String podHint) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.podHint = podHint;
+    }
+}
@@ -2,6 +2,7 @@ package com.example.broadcast.shared.exception;
 
 import com.example.broadcast.shared.dto.ErrorResponse;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -17,6 +18,9 @@ import java.util.stream.Collectors;
 @Slf4j
 public class GlobalExceptionHandler {
 
+    /** Names a less-loaded pod the client may reconnect to after a rejected connection. */
+    public static final String POD_HINT_HEADER = "X-Broadcast-Pod-Hint";
+
     @ExceptionHandler(ResourceNotFoundException.class)
     public ResponseEntity<ErrorResponse> handleResourceNotFoundException(ResourceNotFoundException ex, ServerWebExchange exchange) {
         ErrorResponse errorResponse = new ErrorResponse(
@@ -43,6 +47,24 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(errorResponse, HttpStatus.SERVICE_UNAVAILABLE);
     }
 
+    @ExceptionHandler(ConnectionRejectedException.class)
+    public ResponseEntity<ErrorResponse> handleConnectionRejectedException(ConnectionRejectedException ex, ServerWebExchange exchange) {
+        ErrorResponse errorResponse = new ErrorResponse(
+                OffsetDateTime.now(),
+                HttpStatus.SERVICE_UNAVAILABLE.value(),
+                "Service Unavailable",
+                ex.getMessage(),
+                exchange.getRequest().getPath().toString()
+        );
+        log.warn("ConnectionRejectedException: {}", ex.getMessage());
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()));
+        if (ex.getPodHint() != null) {
+            response.header(POD_HINT_HEADER, ex.getPodHint());
+        }
+        return response.body(errorResponse);
+    }
+
     @ExceptionHandler(WebExchangeBindException.class)
     public ResponseEntity<ErrorResponse> handleValidationExceptions(WebExchangeBindException ex, ServerWebExchange exchange) {
         String errors = ex.getBindingResult()
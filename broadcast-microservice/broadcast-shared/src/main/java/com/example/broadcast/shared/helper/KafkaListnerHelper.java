@@ -22,6 +22,27 @@ public class KafkaListnerHelper {
         return getOrchestrationTopic() + Constants.DLT_SUFFIX;
     }
 
+    /**
+     * @param uniqueClusterPodName The target pod as "cluster:pod".
+     */
+    public String getPodDeliveryTopic(String uniqueClusterPodName) {
+        // Topic names may not contain ':'.
+        return appProperties.getKafka().getTopic().getNamePodDeliveryPrefix() + "." + uniqueClusterPodName.replace(':', '.');
+    }
+
+    public String getOwnPodDeliveryTopic() {
+        return getPodDeliveryTopic(appProperties.getClusterName() + ":" + appProperties.getPodName());
+    }
+
+    public String getAllPodsDeliveryTopic() {
+        return appProperties.getKafka().getTopic().getNamePodDeliveryPrefix() + ".all";
+    }
+
+    public String getPodDeliveryGroupId() {
+        // Unique per pod, so that every pod reads every pod-wide event.
+        return appProperties.getKafka().getTopic().getNamePodDeliveryPrefix() + "-" + appProperties.getClusterName() + "-" + appProperties.getPodName();
+    }
+
     public String getDltGroupId(){
         return appProperties.getKafka().getConsumer().getGroupDlt();
     }
@@ -34,6 +55,14 @@ public class KafkaListnerHelper {
         return DLT_LISTNER_CONTAINER_FACTORY;
     }
 
+    /**
+     * Pod delivery is best-effort on top of the inbox, so a failing record is only logged and
+     * skipped, as on the DLT listener, rather than retried and routed to the orchestration DLT.
+     */
+    public String getPodDeliveryListnerContainerFactory(){
+        return DLT_LISTNER_CONTAINER_FACTORY;
+    }
+
     public String getOrchestratorListnerContainerFactory(){
         return ORCHESTRATOR_LISTNER_CONTAINER_FACTORY;
     }
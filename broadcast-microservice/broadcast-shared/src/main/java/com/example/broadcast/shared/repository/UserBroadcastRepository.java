@@ -34,7 +34,14 @@ public interface UserBroadcastRepository extends CrudRepository<UserBroadcastMes
 
     @Query("SELECT broadcast_id FROM user_broadcast_messages WHERE user_id = :userId AND read_status = 'READ'")
     List<Long> findReadBroadcastIdsByUserId(@Param("userId") String userId);
-    
+
+    // Whether anything a user's inbox is assembled from has changed since the given time.
+    @Query("""
+        SELECT EXISTS (SELECT 1 FROM user_broadcast_messages WHERE user_id = :userId AND updated_at > CAST(:since AS timestamptz))
+            OR EXISTS (SELECT 1 FROM broadcast_messages WHERE target_type = 'ALL' AND updated_at > CAST(:since AS timestamptz))
+    """)
+    boolean hasInboxChangesSince(@Param("userId") String userId, @Param("since") OffsetDateTime since);
+
     @Modifying
     @Query("UPDATE user_broadcast_messages SET read_status = 'READ', read_at = :readAt, updated_at = CURRENT_TIMESTAMP WHERE id = :id AND read_status = 'UNREAD'")
     int markAsRead(@Param("id") Long id, @Param("readAt") OffsetDateTime readAt);
@@ -38,6 +38,13 @@ public final class Constants {
         PRODUCT
     }
 
+    public enum Priority {
+        LOW,
+        NORMAL,
+        HIGH,
+        URGENT
+    }
+
     public enum EventType {
         CREATED,
         READ,
@@ -53,6 +60,7 @@ public final class Constants {
         MESSAGE_REMOVED,
         HEARTBEAT,
         SERVER_SHUTDOWN,
-        CONNECTION_LIMIT_REACHED
+        CONNECTION_LIMIT_REACHED,
+        RECONNECT
     }
 }
\ No newline at end of file
@@ -3,21 +3,27 @@ package com.example.broadcast.user.config;
 import com.example.broadcast.shared.config.AppProperties;
 import com.example.broadcast.shared.dto.BroadcastContent;
 import com.example.broadcast.shared.dto.cache.ConnectionHeartbeat;
+import com.example.broadcast.shared.dto.cache.PodStatus;
 import com.example.broadcast.shared.dto.cache.UserConnectionInfo;
-import com.example.broadcast.shared.dto.cache.UserMessageInbox;
+import com.example.broadcast.shared.dto.cache.CompactUserInbox;
 import com.example.broadcast.user.constants.CacheConstants.GeodeRegionNames;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import org.apache.geode.cache.EvictionAction;
+import org.apache.geode.cache.EvictionAttributes;
+import org.apache.geode.cache.ExpirationAction;
+import org.apache.geode.cache.ExpirationAttributes;
+import org.apache.geode.cache.InterestResultPolicy;
 import org.apache.geode.cache.Region;
 import org.apache.geode.cache.client.ClientCache;
 import org.apache.geode.cache.client.ClientCacheFactory;
 import org.apache.geode.cache.client.ClientRegionShortcut;
+import org.apache.geode.pdx.ReflectionBasedAutoSerializer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
-import java.util.List;
 import java.util.Map;
 
 @Configuration
@@ -25,6 +31,10 @@ import java.util.Map;
 @Slf4j
 public class GeodeClientConfig {
 
+    // The DTOs of broadcast-geode-shared, serialized as PDX without depending on Geode themselves. The compact
+    // inbox is DataSerializable so that it can carry deltas. Must match the pdx-serializer in geode-scripts/cache.xml.
+    private static final String PDX_CLASSES = "com\\.example\\.broadcast\\.shared\\.dto\\.(?!cache\\.CompactUserInbox$).*";
+
     private final AppProperties appProperties;
 
     @Bean(destroyMethod = "close")
@@ -39,6 +49,7 @@ public class GeodeClientConfig {
                 .setPoolSubscriptionEnabled(true)
                 .setPoolSubscriptionRedundancy(1)
                 .setPoolMinConnections(1)
+                .setPdxSerializer(new ReflectionBasedAutoSerializer(PDX_CLASSES))
                 .set("durable-client-id", durableClientId)
                 .set("durable-client-timeout", "30") // Timeout in seconds
                 .set("log-level", "config")
@@ -59,15 +70,28 @@ public class GeodeClientConfig {
     }
 
     @Bean("userMessagesInboxRegion")
-    public Region<String, List<UserMessageInbox>> userMessagesInboxRegion(ClientCache clientCache) {
-        return clientCache.<String, List<UserMessageInbox>>createClientRegionFactory(ClientRegionShortcut.PROXY)
+    public Region<String, CompactUserInbox> userMessagesInboxRegion(ClientCache clientCache) {
+        return clientCache.<String, CompactUserInbox>createClientRegionFactory(ClientRegionShortcut.PROXY)
                 .create(GeodeRegionNames.USER_MESSAGES_INBOX);
     }
 
+    /**
+     * Broadcast content is small, read by every pod and does not change while a broadcast is active,
+     * so it is kept in a bounded local near cache. Interest in all keys makes the servers invalidate the
+     * local copy on every update and removal (e.g. on cancellation); the next read fetches the new value.
+     */
     @Bean("broadcastContentRegion")
     public Region<Long, BroadcastContent> broadcastContentRegion(ClientCache clientCache) {
-        return clientCache.<Long, BroadcastContent>createClientRegionFactory(ClientRegionShortcut.PROXY)
+        AppProperties.Geode.Regions.BroadcastContent config = appProperties.getGeode().getRegions().getBroadcastContent();
+        Region<Long, BroadcastContent> region = clientCache.<Long, BroadcastContent>createClientRegionFactory(ClientRegionShortcut.CACHING_PROXY)
+                .setEvictionAttributes(EvictionAttributes.createLRUEntryAttributes(config.getNearCacheMaxEntries(), EvictionAction.LOCAL_DESTROY))
+                .setStatisticsEnabled(true)
+                .setEntryTimeToLive(new ExpirationAttributes(config.getNearCacheTtlSeconds(), ExpirationAction.LOCAL_DESTROY))
                 .create(GeodeRegionNames.BROADCAST_CONTENT);
+        // Non-durable and without values: the servers send invalidations only, so content this pod has
+        // never read is neither pushed to it nor allowed to push out the entries it has.
+        region.registerInterestForAllKeys(InterestResultPolicy.NONE, false, false);
+        return region;
     }
 
     @Bean("sseUserMessagesRegion")
@@ -82,4 +106,10 @@ public class GeodeClientConfig {
                 .create(GeodeRegionNames.SSE_GROUP_MESSAGES);
     }
 
+    @Bean("podStatusRegion")
+    public Region<String, PodStatus> podStatusRegion(ClientCache clientCache) {
+        return clientCache.<String, PodStatus>createClientRegionFactory(ClientRegionShortcut.PROXY)
+                .create(GeodeRegionNames.POD_STATUS);
+    }
+
 }
\ No newline at end of file
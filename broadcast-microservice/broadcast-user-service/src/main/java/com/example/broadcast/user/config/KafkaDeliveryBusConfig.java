@@ -0,0 +1,43 @@
+package com.example.broadcast.user.config;
+
+import com.example.broadcast.shared.config.AppProperties;
+import com.example.broadcast.shared.helper.KafkaListnerHelper;
+import lombok.RequiredArgsConstructor;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
+
+/**
+ * Creates the topics of the Kafka delivery bus. Each pod creates its own delivery topic at startup,
+ * so a topic exists before any orchestrator can route a user of that pod to it.
+ */
+@Configuration
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "broadcast.delivery", name = "bus", havingValue = "kafka")
+public class KafkaDeliveryBusConfig {
+
+    private final KafkaListnerHelper kafkaListnerHelper;
+    private final AppProperties appProperties;
+
+    @Bean
+    public NewTopic podDeliveryTopic() {
+        // One partition keeps the events of each user in order. Events are only useful while the
+        // user is connected, and topics of pods that are gone only hold expired data.
+        return TopicBuilder.name(kafkaListnerHelper.getOwnPodDeliveryTopic())
+                .partitions(1)
+                .replicas(appProperties.getKafka().getTopic().getReplicationFactor())
+                .config("retention.ms", "3600000") // 1 hour
+                .build();
+    }
+
+    @Bean
+    public NewTopic allPodsDeliveryTopic() {
+        return TopicBuilder.name(kafkaListnerHelper.getAllPodsDeliveryTopic())
+                .partitions(1)
+                .replicas(appProperties.getKafka().getTopic().getReplicationFactor())
+                .config("retention.ms", "3600000") // 1 hour
+                .build();
+    }
+}
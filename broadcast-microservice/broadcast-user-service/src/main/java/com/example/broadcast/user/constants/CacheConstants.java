@@ -10,6 +10,7 @@ public class CacheConstants {
         public static final String SSE_USER_MESSAGES = "sse-user-messages";
         public static final String SSE_GROUP_MESSAGES = "sse-group-messages";
         public static final String USER_MESSAGES_INBOX = "user-messages-inbox";
+        public static final String POD_STATUS = "pod-status";
     }
     
 }
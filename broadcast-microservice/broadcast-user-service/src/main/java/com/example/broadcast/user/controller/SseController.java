@@ -4,15 +4,17 @@ import com.example.broadcast.shared.aspect.Monitored;
 import com.example.broadcast.shared.config.AppProperties;
 import com.example.broadcast.user.service.SseService;
 import com.example.broadcast.user.service.cache.CacheService;
+import com.example.broadcast.user.service.sse.SseStreamCompressor;
 
 import io.github.resilience4j.ratelimiter.RequestNotPermitted;
 import io.github.resilience4j.ratelimiter.annotation.RateLimiter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.server.ServerWebExchange;
@@ -31,11 +33,15 @@ public class SseController {
     private final CacheService cacheService;
     private final AppProperties appProperties;
 
+    // The stream carries pre-encoded SSE frames, so the body is written as raw buffers
+    // with the text/event-stream content type instead of going through the SSE codec.
     @GetMapping(value = "/connect", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
     @RateLimiter(name = "sseConnectLimiter", fallbackMethod = "connectFallback")
-    public Flux<ServerSentEvent<String>> connect(
+    public Flux<DataBuffer> connect(
             @RequestParam String userId,
             @RequestParam(required = false) String connectionIdParam,
+            @RequestParam(required = false) String lastEventId,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventIdHeader,
             ServerWebExchange exchange) {
         
         final String connectionId = (connectionIdParam == null || connectionIdParam.trim().isEmpty())
@@ -46,10 +52,16 @@ public class SseController {
                 userId, connectionId,
                 exchange.getRequest().getRemoteAddress() != null ? exchange.getRequest().getRemoteAddress().getAddress().getHostAddress() : "unknown");
 
-        return sseService.establishSseConnection(userId, connectionId);
+        // The browser sends Last-Event-ID on its own reconnects; the client sets the parameter when it opens a new EventSource.
+        String resumeFrom = lastEventIdHeader != null && !lastEventIdHeader.isBlank() ? lastEventIdHeader : lastEventId;
+
+        SseStreamCompressor.Encoding encoding = negotiateEncoding(exchange);
+
+        return sseService.establishSseConnection(userId, connectionId, resumeFrom, encoding);
     }
 
-    public Flux<ServerSentEvent<String>> connectFallback(String userId, String connectionId, ServerWebExchange exchange, RequestNotPermitted ex) {
+    public Flux<DataBuffer> connectFallback(String userId, String connectionId, String lastEventId, String lastEventIdHeader,
+                                            ServerWebExchange exchange, RequestNotPermitted ex) {
         log.warn("Connection rate limit exceeded for user: {}. IP: {}. Details: {}",
             userId,
             exchange.getRequest().getRemoteAddress(),
@@ -57,6 +69,20 @@ public class SseController {
         return Flux.error(new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Connection rate limit exceeded. Please try again later."));
     }
 
+    private SseStreamCompressor.Encoding negotiateEncoding(ServerWebExchange exchange) {
+        if (!appProperties.getSse().isCompressionEnabled()) {
+            return null;
+        }
+        HttpHeaders responseHeaders = exchange.getResponse().getHeaders();
+        responseHeaders.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        SseStreamCompressor.Encoding encoding = SseStreamCompressor.Encoding.negotiate(
+                exchange.getRequest().getHeaders().getFirst(HttpHeaders.ACCEPT_ENCODING));
+        if (encoding != null) {
+            responseHeaders.set(HttpHeaders.CONTENT_ENCODING, encoding.headerValue());
+        }
+        return encoding;
+    }
+
     @PostMapping("/disconnect")
     public ResponseEntity<String> disconnect(
             @RequestParam String userId,
@@ -70,13 +96,20 @@ public class SseController {
     public ResponseEntity<java.util.Map<String, Object>> getStats() {
         java.util.Map<String, Object> stats = new java.util.HashMap<>();
         stats.put("totalActiveUsers", cacheService.getTotalActiveUsers());
-        stats.put("podActiveUsers", new String("0")); //TODO change from cache
+        stats.put("podActiveUsers", sseService.getLocalUserCount());
         stats.put("sseConnectedUsers", sseService.getConnectedUserCount());
+        stats.put("sseBufferedBytes", sseService.getPodBufferedBytes());
         stats.put("podId", appProperties.getPodName());
         stats.put("timestamp", OffsetDateTime.now());
         return ResponseEntity.ok(stats);
     }
 
+    @GetMapping("/queue/{connectionId}")
+    public ResponseEntity<Integer> getQueueDepth(@PathVariable String connectionId) {
+        int depth = sseService.getQueueDepth(connectionId);
+        return depth < 0 ? ResponseEntity.notFound().build() : ResponseEntity.ok(depth);
+    }
+
     @GetMapping("/connected/{userId}")
     public ResponseEntity<Boolean> isUserConnected(@PathVariable String userId) {
         boolean connected = sseService.isUserConnected(userId);
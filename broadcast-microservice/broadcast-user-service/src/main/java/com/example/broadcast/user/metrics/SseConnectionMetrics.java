@@ -0,0 +1,71 @@
+package com.example.broadcast.user.metrics;
+
+import com.example.broadcast.user.service.DeliveryDispatcher;
+import com.example.broadcast.user.service.SseAdmissionService;
+import com.example.broadcast.user.service.SseConnectionManager;
+import com.example.broadcast.user.service.UserPodIndex;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Exports the state of the SSE connections held by this pod to Prometheus.
+ */
+@Component
+@RequiredArgsConstructor
+public class SseConnectionMetrics implements MeterBinder {
+
+    private final SseConnectionManager sseConnectionManager;
+    private final SseAdmissionService sseAdmissionService;
+    private final DeliveryDispatcher deliveryDispatcher;
+    private final UserPodIndex userPodIndex;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("broadcast.sse.connections.local", sseConnectionManager, SseConnectionManager::getConnectedUserCount)
+            .description("The number of SSE connections held by this pod.")
+            .register(registry);
+
+        Gauge.builder("broadcast.sse.queue.buffered.bytes", sseConnectionManager, SseConnectionManager::getPodBufferedBytes)
+            .description("Bytes queued across all SSE send queues on this pod, waiting for clients to read them.")
+            .baseUnit("bytes")
+            .register(registry);
+
+        Gauge.builder("broadcast.sse.replay.buffered.bytes", sseConnectionManager, SseConnectionManager::getReplayBufferedBytes)
+            .description("Bytes held in the per-user replay rings on this pod for Last-Event-ID resume.")
+            .baseUnit("bytes")
+            .register(registry);
+
+        Gauge.builder("broadcast.sse.replay.rings", sseConnectionManager, SseConnectionManager::getReplayRingCount)
+            .description("Users on this pod with a replay ring, including recently disconnected ones.")
+            .register(registry);
+
+        Gauge.builder("broadcast.sse.queue.depth.max", sseConnectionManager, SseConnectionManager::getMaxQueueDepth)
+            .description("The deepest SSE send queue on this pod.")
+            .register(registry);
+
+        Gauge.builder("broadcast.sse.dispatch.queue.depth", deliveryDispatcher, DeliveryDispatcher::getQueuedTasks)
+            .description("Received events waiting in the dispatch lanes of this pod.")
+            .register(registry);
+
+        Gauge.builder("broadcast.sse.dispatch.queue.depth.max", deliveryDispatcher, DeliveryDispatcher::getMaxLaneDepth)
+            .description("The deepest dispatch lane on this pod.")
+            .register(registry);
+
+        Gauge.builder("broadcast.routing.index.users", userPodIndex, UserPodIndex::size)
+            .description("Online users in this pod's user-to-pod routing index.")
+            .register(registry);
+
+        Gauge.builder("broadcast.routing.index.memory", userPodIndex, UserPodIndex::getEstimatedBytes)
+            .description("Estimated heap held by the user-to-pod routing index.")
+            .baseUnit("bytes")
+            .register(registry);
+
+        Gauge.builder("broadcast.netty.eventloop.lag", sseAdmissionService, SseAdmissionService::getEventLoopLagMs)
+            .description("The longest time a server event loop recently took to start a queued task.")
+            .baseUnit("milliseconds")
+            .register(registry);
+    }
+}
@@ -0,0 +1,242 @@
+package com.example.broadcast.user.metrics;
+
+import com.example.broadcast.shared.config.AppProperties.Delivery.Bus;
+import com.example.broadcast.user.service.SseAdmissionService.RejectReason;
+import com.example.broadcast.user.service.sse.SseConnection.OfferResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds the hot-path meters of the SSE delivery pipeline.
+ * The meters are registered once and incremented directly, so recording a write
+ * to one of thousands of connections does not allocate a meter lookup key.
+ */
+@Component
+public class SseMetrics {
+
+    private final Counter framesEncoded;
+    private final Counter bytesEncoded;
+    private final Counter framesWritten;
+    private final Counter bytesWritten;
+    private final DistributionSummary batchSize;
+    private final Counter compressionRawBytes;
+    private final Counter compressionCompressedBytes;
+    private final Timer compressionTime;
+    private final Map<OfferResult, Counter> queueOverflows = new EnumMap<>(OfferResult.class);
+    private final Map<RejectReason, Counter> admissionRejections = new EnumMap<>(RejectReason.class);
+    private final Counter heartbeatsSent;
+    private final Counter heartbeatsSuppressed;
+    private final Timer fanOutLastEmit;
+    private final Counter resumesReplayed;
+    private final Counter resumesResynced;
+    private final Counter framesReplayed;
+    private final DistributionSummary drainReconnectSpread;
+    private final DistributionSummary scatterBatchSize;
+    private final Counter scatterOffline;
+    private final Timer dispatchWait;
+    private final Timer dispatchRun;
+    private final Counter dispatchLaneFull;
+    private final Map<Bus, Timer> deliveryPublish = new EnumMap<>(Bus.class);
+    private final Map<Bus, Timer> deliveryLatency = new EnumMap<>(Bus.class);
+
+    public SseMetrics(MeterRegistry registry) {
+        this.framesEncoded = Counter.builder("broadcast.sse.frames.encoded")
+                .description("SSE frames serialized and encoded to bytes.")
+                .register(registry);
+        this.bytesEncoded = Counter.builder("broadcast.sse.frames.encoded.bytes")
+                .description("Bytes allocated for encoded SSE frames.")
+                .baseUnit("bytes")
+                .register(registry);
+        this.framesWritten = Counter.builder("broadcast.sse.frames.written")
+                .description("SSE frames handed to a connection for writing.")
+                .register(registry);
+        this.bytesWritten = Counter.builder("broadcast.sse.frames.written.bytes")
+                .description("Bytes handed to connections; the difference to encoded bytes is the copying saved by sharing frames.")
+                .baseUnit("bytes")
+                .register(registry);
+        this.batchSize = DistributionSummary.builder("broadcast.sse.batch.size")
+                .description("SSE frames written to a connection in one network write.")
+                .register(registry);
+        this.compressionRawBytes = Counter.builder("broadcast.sse.compression.bytes")
+                .description("Bytes passed through SSE stream compression, before and after compressing.")
+                .tag("stage", "raw")
+                .baseUnit("bytes")
+                .register(registry);
+        this.compressionCompressedBytes = Counter.builder("broadcast.sse.compression.bytes")
+                .description("Bytes passed through SSE stream compression, before and after compressing.")
+                .tag("stage", "compressed")
+                .baseUnit("bytes")
+                .register(registry);
+        this.compressionTime = Timer.builder("broadcast.sse.compression.time")
+                .description("Time spent compressing and sync-flushing SSE writes; the compression CPU cost of the pod.")
+                .register(registry);
+        Gauge.builder("broadcast.sse.compression.ratio", this, SseMetrics::compressionRatio)
+                .description("Compressed bytes divided by raw bytes, over the lifetime of the pod.")
+                .register(registry);
+        this.drainReconnectSpread = DistributionSummary.builder("broadcast.sse.drain.reconnect.spread")
+                .description("When drained clients were told to reconnect, relative to the start of the drain.")
+                .baseUnit("milliseconds")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.scatterBatchSize = DistributionSummary.builder("broadcast.scatter.batch.size")
+                .description("User-specific events written to sse-user-messages for one pod in one flush.")
+                .register(registry);
+        this.scatterOffline = Counter.builder("broadcast.scatter.offline")
+                .description("User-specific events not scattered because the user had no connection when the batch was flushed.")
+                .register(registry);
+        this.dispatchWait = Timer.builder("broadcast.sse.dispatch.lane.latency")
+                .description("Time a received event waited in its dispatch lane before delivery started.")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.dispatchRun = Timer.builder("broadcast.sse.dispatch.duration")
+                .description("Time a dispatch lane spent delivering one received event, including its database calls.")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.dispatchLaneFull = Counter.builder("broadcast.sse.dispatch.lane.full")
+                .description("Received events that found their dispatch lane full and held up the receiving thread.")
+                .register(registry);
+        this.heartbeatsSent = Counter.builder("broadcast.sse.heartbeats")
+                .description("Due SSE heartbeats, by whether they were sent or suppressed because the connection was recently active.")
+                .tag("outcome", "sent")
+                .register(registry);
+        this.heartbeatsSuppressed = Counter.builder("broadcast.sse.heartbeats")
+                .description("Due SSE heartbeats, by whether they were sent or suppressed because the connection was recently active.")
+                .tag("outcome", "suppressed")
+                .register(registry);
+        this.fanOutLastEmit = Timer.builder("broadcast.sse.fanout.last.emit")
+                .description("Time from the start of a pod-wide fan-out until the last shard has queued the event on all its connections.")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.resumesReplayed = Counter.builder("broadcast.sse.resume")
+                .description("Reconnects that asked to resume from a Last-Event-ID, by outcome.")
+                .tag("outcome", "replayed")
+                .register(registry);
+        this.resumesResynced = Counter.builder("broadcast.sse.resume")
+                .description("Reconnects that asked to resume from a Last-Event-ID, by outcome.")
+                .tag("outcome", "resync")
+                .register(registry);
+        this.framesReplayed = Counter.builder("broadcast.sse.resume.replayed.events")
+                .description("Missed events replayed to resuming clients.")
+                .register(registry);
+        for (OfferResult outcome : new OfferResult[] {OfferResult.DROPPED_OLDEST, OfferResult.COALESCED, OfferResult.DISCONNECTED}) {
+            queueOverflows.put(outcome, Counter.builder("broadcast.sse.queue.overflow")
+                    .description("Frames offered to a full or coalescing send queue, by what the overflow policy did.")
+                    .tag("outcome", outcome.name())
+                    .register(registry));
+        }
+        for (Bus bus : Bus.values()) {
+            deliveryPublish.put(bus, Timer.builder("broadcast.delivery.bus.publish")
+                    .description("Time the orchestrator waits for the delivery bus to accept one batch or pod-wide event.")
+                    .tag("bus", bus.name())
+                    .publishPercentileHistogram()
+                    .register(registry));
+            deliveryLatency.put(bus, Timer.builder("broadcast.delivery.latency")
+                    .description("Time from the creation of an event to its receipt on the pod holding the connection, by delivery bus.")
+                    .tag("bus", bus.name())
+                    .publishPercentileHistogram()
+                    .register(registry));
+        }
+        for (RejectReason reason : RejectReason.values()) {
+            admissionRejections.put(reason, Counter.builder("broadcast.sse.admission.rejected")
+                    .description("SSE connects refused because this pod was at capacity, by the limit that was hit.")
+                    .tag("reason", reason.name())
+                    .register(registry));
+        }
+    }
+
+    public void frameEncoded(int sizeInBytes) {
+        framesEncoded.increment();
+        bytesEncoded.increment(sizeInBytes);
+    }
+
+    public void frameWritten(int sizeInBytes) {
+        framesWritten.increment();
+        bytesWritten.increment(sizeInBytes);
+    }
+
+    public void batchWritten(int frames) {
+        batchSize.record(frames);
+    }
+
+    public void compressed(int rawBytes, int compressedBytes, long elapsedNanos) {
+        compressionRawBytes.increment(rawBytes);
+        compressionCompressedBytes.increment(compressedBytes);
+        compressionTime.record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private double compressionRatio() {
+        double raw = compressionRawBytes.count();
+        return raw > 0 ? compressionCompressedBytes.count() / raw : 1.0;
+    }
+
+    public void heartbeats(int sent, int suppressed) {
+        heartbeatsSent.increment(sent);
+        heartbeatsSuppressed.increment(suppressed);
+    }
+
+    public void fanOutCompleted(long elapsedNanos) {
+        fanOutLastEmit.record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void resumeReplayed(int events) {
+        resumesReplayed.increment();
+        framesReplayed.increment(events);
+    }
+
+    public void resumeResync() {
+        resumesResynced.increment();
+    }
+
+    public void drainReconnectScheduled(long reconnectAtMs) {
+        drainReconnectSpread.record(reconnectAtMs);
+    }
+
+    public void scatterBatchWritten(int events) {
+        scatterBatchSize.record(events);
+    }
+
+    public void scatterOffline(int events) {
+        scatterOffline.increment(events);
+    }
+
+    public void dispatched(long waitNanos, long runNanos) {
+        dispatchWait.record(waitNanos, TimeUnit.NANOSECONDS);
+        dispatchRun.record(runNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void dispatchLaneFull() {
+        dispatchLaneFull.increment();
+    }
+
+    public void deliveryPublished(Bus bus, long elapsedNanos) {
+        deliveryPublish.get(bus).record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param createdAtEpochMilli When the event was created; ignored if unset.
+     */
+    public void deliveryReceived(Bus bus, long createdAtEpochMilli) {
+        if (createdAtEpochMilli > 0) {
+            deliveryLatency.get(bus).record(Math.max(0, System.currentTimeMillis() - createdAtEpochMilli), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public void queueOverflow(OfferResult outcome) {
+        Counter counter = queueOverflows.get(outcome);
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+
+    public void admissionRejected(RejectReason reason) {
+        admissionRejections.get(reason).increment();
+    }
+}
@@ -11,7 +11,6 @@ import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.time.OffsetDateTime;
-import java.util.Set;
 
 @Service
 @Slf4j
@@ -23,8 +22,9 @@ public class GeodeStaleConnectionCleanupService {
 
     /**
      * A scheduled, cluster-wide job that finds and cleans up any stale or orphaned
-     * user connections in Geode. The SchedulerLock ensures only one pod runs this
-     * at a time to prevent race conditions.
+     * user connections in Geode. A connection is stale when the lease of the pod that
+     * holds it has not been renewed within the client timeout. The SchedulerLock ensures
+     * only one pod runs this at a time to prevent race conditions.
      */
     @Monitored("scheduler")
     @Scheduled(fixedRate = 60000) // Run every 60 seconds
@@ -35,24 +35,14 @@ public class GeodeStaleConnectionCleanupService {
             long nowEpochMillis = OffsetDateTime.now().toInstant().toEpochMilli();
             long staleThreshold = nowEpochMillis - appProperties.getSse().getClientTimeoutThreshold();
 
-            // 1. Get ALL stale connection IDs from across the cluster
-            Set<String> staleConnectionIds = cacheService.getStaleConnectionIds(staleThreshold);
+            // Sweep the connections of every pod whose lease expired, across the cluster
+            int removed = cacheService.removeConnectionsOfExpiredPods(staleThreshold);
 
-            if (staleConnectionIds.isEmpty()) {
+            if (removed == 0) {
                 log.trace("No stale connections found.");
                 return;
             }
-
-            log.warn("Found {} stale connections to clean up.", staleConnectionIds.size());
-            for (String staleConnectionId : staleConnectionIds) {
-                // Get the heartbeat entry, which we know exists and is stale.
-                cacheService.getHeartbeatEntry(staleConnectionId).ifPresent(heartbeat -> {
-                    String userId = heartbeat.getUserId();
-                    log.info("Cleaning up stale connection {} for user {}", staleConnectionId, userId);
-                    // Directly call the unregister method with the known information.
-                    cacheService.unregisterUserConnection(userId, staleConnectionId);
-                });
-            }
+            log.warn("Cleaned up {} stale connections of pods with expired leases.", removed);
         } catch (Exception e) {
             log.error("Error during stale connection cleanup job", e);
         }
@@ -0,0 +1,89 @@
+package com.example.broadcast.user.service;
+
+import com.example.broadcast.shared.config.AppProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.client.ClientCache;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Removes the entries of the CQ delivery regions once their events have been processed.
+ * <p>
+ * The CQ thread only records the consumed key; the keys are removed in the background with one
+ * {@code removeAll} per region and interval, so delivery does not wait for the delete. Keys whose
+ * removal fails are not retried: the entry time-to-live of the regions (see cache.xml) removes
+ * whatever is left behind.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class CqEntryCleaner {
+
+    private static final int MAX_KEYS_PER_REMOVE_ALL = 1000;
+
+    private final ClientCache clientCache;
+    private final AppProperties appProperties;
+
+    private final Map<String, Queue<String>> consumedKeys = new ConcurrentHashMap<>();
+    private Disposable cleanupSubscription;
+
+    @PostConstruct
+    public void init() {
+        // Removing blocks on Geode, so keep it off the parallel scheduler.
+        cleanupSubscription = Flux.interval(Duration.ofMillis(appProperties.getSse().getCqCleanupInterval()), Schedulers.boundedElastic())
+                .subscribe(tick -> removeConsumed());
+    }
+
+    @PreDestroy
+    public void cleanup() {
+        if (cleanupSubscription != null) {
+            cleanupSubscription.dispose();
+        }
+        removeConsumed();
+    }
+
+    public void consumed(String regionName, String key) {
+        consumedKeys.computeIfAbsent(regionName, name -> new ConcurrentLinkedQueue<>()).add(key);
+    }
+
+    private void removeConsumed() {
+        consumedKeys.forEach((regionName, keys) -> {
+            Region<String, Object> region = clientCache.getRegion(regionName);
+            List<String> batch = new ArrayList<>();
+            String key;
+            while ((key = keys.poll()) != null) {
+                batch.add(key);
+                if (batch.size() == MAX_KEYS_PER_REMOVE_ALL) {
+                    removeAll(region, batch);
+                    batch = new ArrayList<>();
+                }
+            }
+            if (!batch.isEmpty()) {
+                removeAll(region, batch);
+            }
+        });
+    }
+
+    private void removeAll(Region<String, Object> region, List<String> keys) {
+        try {
+            region.removeAll(keys);
+            log.debug("Cleaned up {} consumed entries from '{}'.", keys.size(), region.getName());
+        } catch (Exception e) {
+            log.warn("Failed to clean up {} consumed entries from '{}'; leaving them to expire: {}", keys.size(), region.getName(), e.getMessage());
+        }
+    }
+}
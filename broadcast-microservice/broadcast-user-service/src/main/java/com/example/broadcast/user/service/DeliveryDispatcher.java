@@ -0,0 +1,129 @@
+package com.example.broadcast.user.service;
+
+import com.example.broadcast.shared.config.AppProperties;
+import com.example.broadcast.user.metrics.SseMetrics;
+import io.opentelemetry.context.Context;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the delivery of received events off the thread of the transport that received them.
+ * <p>
+ * Events are spread over a fixed number of lanes by the hash of their key (the user id for
+ * user-specific events), and each lane runs its events one at a time on its own thread, so the
+ * events of one user keep their order while a slow database call only holds up the users that
+ * share its lane. Lanes are bounded: when a lane is full, the receiving thread waits for room,
+ * which slows the transport down instead of buffering without limit.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class DeliveryDispatcher {
+
+    private static final long SHUTDOWN_GRACE_MS = 2000L;
+    // How often an idle lane checks whether it is being shut down.
+    private static final long POLL_INTERVAL_MS = 100L;
+
+    private record Task(Runnable work, long enqueuedAtNanos) {}
+
+    private final AppProperties appProperties;
+    private final SseMetrics sseMetrics;
+
+    private BlockingQueue<Task>[] lanes;
+    private Thread[] laneThreads;
+    private volatile boolean running;
+
+    @PostConstruct
+    @SuppressWarnings("unchecked")
+    public void init() {
+        AppProperties.Sse sse = appProperties.getSse();
+        lanes = new BlockingQueue[sse.getDispatchLanes()];
+        laneThreads = new Thread[lanes.length];
+        running = true;
+        for (int i = 0; i < lanes.length; i++) {
+            BlockingQueue<Task> lane = new ArrayBlockingQueue<>(sse.getDispatchLaneCapacity());
+            lanes[i] = lane;
+            laneThreads[i] = Thread.ofPlatform().name("sse-dispatch-" + i).daemon().start(() -> runLane(lane));
+        }
+        log.info("Started {} delivery dispatch lanes with capacity {}.", lanes.length, sse.getDispatchLaneCapacity());
+    }
+
+    @PreDestroy
+    public void cleanup() {
+        running = false;
+        // The lanes finish what is already queued; whatever is left after the grace period is dropped.
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(SHUTDOWN_GRACE_MS);
+        for (Thread laneThread : laneThreads) {
+            try {
+                laneThread.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Queues work on the lane of the given key, carrying over the current trace context.
+     * Blocks while that lane is full.
+     */
+    public void dispatch(String key, Runnable work) {
+        BlockingQueue<Task> lane = lanes[Math.floorMod(key.hashCode(), lanes.length)];
+        Task task = new Task(Context.current().wrap(work), System.nanoTime());
+        if (lane.offer(task)) {
+            return;
+        }
+        sseMetrics.dispatchLaneFull();
+        try {
+            lane.put(task);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Interrupted while waiting for room on a dispatch lane; event for key {} dropped.", key);
+        }
+    }
+
+    public int getQueuedTasks() {
+        int queued = 0;
+        for (BlockingQueue<Task> lane : lanes) {
+            queued += lane.size();
+        }
+        return queued;
+    }
+
+    public int getMaxLaneDepth() {
+        int max = 0;
+        for (BlockingQueue<Task> lane : lanes) {
+            max = Math.max(max, lane.size());
+        }
+        return max;
+    }
+
+    private void runLane(BlockingQueue<Task> lane) {
+        while (running || !lane.isEmpty()) {
+            Task task;
+            try {
+                task = lane.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (task == null) {
+                continue;
+            }
+            long startedAt = System.nanoTime();
+            try {
+                task.work().run();
+            } catch (Exception e) {
+                log.error("Delivery dispatch task failed: {}", e.getMessage(), e);
+            } finally {
+                sseMetrics.dispatched(startedAt - task.enqueuedAtNanos(), System.nanoTime() - startedAt);
+            }
+        }
+    }
+}
@@ -1,7 +1,7 @@
 package com.example.broadcast.user.service;
 
 import com.example.broadcast.shared.dto.MessageDeliveryEvent;
-import com.example.broadcast.shared.dto.cache.UserConnectionInfo;
+import com.example.broadcast.shared.dto.cache.UserMessageInbox;
 import com.example.broadcast.shared.mapper.SharedEventMapper;
 import com.example.broadcast.shared.model.BroadcastMessage;
 import com.example.broadcast.shared.model.UserBroadcastMessage;
@@ -9,17 +9,13 @@ import com.example.broadcast.shared.repository.BroadcastRepository;
 import com.example.broadcast.shared.repository.BroadcastStatisticsRepository;
 import com.example.broadcast.shared.repository.UserBroadcastRepository;
 import com.example.broadcast.shared.aspect.Monitored;
-import com.example.broadcast.shared.dto.GeodeSsePayload;
 import com.example.broadcast.shared.util.Constants;
+import com.example.broadcast.user.service.bus.DeliveryBus;
 import com.example.broadcast.user.service.cache.CacheService;
 
-import io.opentelemetry.api.GlobalOpenTelemetry;
-import io.opentelemetry.context.Context;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.geode.cache.Region;
 import org.slf4j.MDC;
-import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.kafka.support.KafkaHeaders;
@@ -27,10 +23,8 @@ import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.UUID;
+import java.util.stream.Collectors;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
 
@@ -44,12 +38,8 @@ public class KafkaOrchestratorConsumerService {
     private final UserBroadcastRepository userBroadcastRepository;
     private final BroadcastStatisticsRepository broadcastStatisticsRepository;
     private final SharedEventMapper sharedEventMapper;
-    
-    @Qualifier("sseUserMessagesRegion")
-    private final Region<String, Object> sseUserMessagesRegion;
-
-    @Qualifier("sseGroupMessagesRegion")
-    private final Region<String, Object> sseGroupMessagesRegion;
+    private final SseScatterBatcher sseScatterBatcher;
+    private final DeliveryBus deliveryBus;
 
     @Monitored("kafka-consumer")
     @KafkaListener(
@@ -89,13 +79,14 @@ public class KafkaOrchestratorConsumerService {
                             log.info("Marking Fire-and-Forget message as read in DB for user {} and broadcast {}", event.getUserId(), event.getBroadcastId());
                             userBroadcastRepository.markAsRead(message.getId(), OffsetDateTime.now(ZoneOffset.UTC));
                         });
-                    cacheService.evictUserInbox(event.getUserId());
+                    cacheService.updateUserInbox(event.getUserId(), inbox -> inbox.remove(event.getBroadcastId()));
                 }
             } else {
                 handleGroupLevelEvent(event);
             }
 
-            acknowledgment.acknowledge();
+            // Deferred until the scattered events consumed so far are written.
+            sseScatterBatcher.acknowledge(acknowledgment);
          } finally {
             // 2. CRITICAL: Always clear the MDC to prevent it from leaking to other messages
             MDC.remove(Constants.CORRELATION_ID);
@@ -105,8 +96,15 @@ public class KafkaOrchestratorConsumerService {
     private void handleUserSpecificEvent(MessageDeliveryEvent event) {
         log.debug("Processing user-specific event for user {}", event.getUserId());
         if (Constants.EventType.valueOf(event.getEventType()) == Constants.EventType.CREATED) {
-            log.info("Evicting inbox cache for user {} due to new CREATED event.", event.getUserId());
-            cacheService.evictUserInbox(event.getUserId());
+            // Added here rather than by the user's pod, so that the inbox of an offline user gets it too.
+            // The record is read before the inbox, to keep the read-change-put of the inbox short.
+            userBroadcastRepository.findByUserIdAndBroadcastId(event.getUserId(), event.getBroadcastId()).ifPresent(message -> {
+                UserMessageInbox entry = new UserMessageInbox(message.getId(), message.getBroadcastId(), message.getDeliveryStatus(),
+                    message.getReadStatus(), message.getCreatedAt().toInstant().toEpochMilli());
+                if (cacheService.updateUserInbox(event.getUserId(), inbox -> inbox.add(entry))) {
+                    log.info("Added broadcast {} to the cached inbox of user {} due to new CREATED event.", event.getBroadcastId(), event.getUserId());
+                }
+            });
         }
         scatterToUser(event);
     }
@@ -125,10 +123,10 @@ public class KafkaOrchestratorConsumerService {
         switch (Constants.EventType.valueOf(event.getEventType())) {
             case CREATED:
                 cacheService.cacheBroadcastContent(sharedEventMapper.toBroadcastContentDTO(broadcast));
-                List<String> onlineUsers = cacheService.getOnlineUsers();
-                if (!onlineUsers.isEmpty()) {
-                    log.info("Updating statistics for 'ALL' broadcast {}: targeting and delivering to {} online users.", broadcast.getId(), onlineUsers.size());
-                    broadcastStatisticsRepository.incrementDeliveredCount(broadcast.getId(), onlineUsers.size());
+                long onlineUsers = cacheService.getTotalActiveUsers();
+                if (onlineUsers > 0) {
+                    log.info("Updating statistics for 'ALL' broadcast {}: targeting and delivering to {} online users.", broadcast.getId(), onlineUsers);
+                    broadcastStatisticsRepository.incrementDeliveredCount(broadcast.getId(), (int) onlineUsers);
                 }
                 break;
             case CANCELLED:
@@ -137,20 +135,15 @@ public class KafkaOrchestratorConsumerService {
                 cacheService.evictBroadcastContent(broadcast.getId());
 
                 if (Constants.TargetType.ALL.name().equals(broadcast.getTargetType())) {
-                    // For an 'ALL' broadcast, we must evict the inbox for all *online* users,
-                    // as they are the only ones who could have a cached entry for it.
-                    List<String> onlineUsersForEvict = cacheService.getOnlineUsers();
-                    for (String userId : onlineUsersForEvict) {
-                        cacheService.evictUserInbox(userId);
-                    }
-                    log.info("Evicted inbox caches for {} online users due to 'ALL' broadcast cancellation.", onlineUsersForEvict.size());
+                    // For an 'ALL' broadcast, only *online* users could have a cached entry for it. Every pod
+                    // removes it from the inboxes of its own users when it handles the generic event published below.
+                    log.info("Inbox caches for 'ALL' broadcast {} are updated by each pod for its local users.", broadcast.getId());
                 } else {
                     // For targeted broadcasts (ROLE, SELECTED, etc.), we can be more precise.
                     List<UserBroadcastMessage> affectedUsers = userBroadcastRepository.findByBroadcastId(broadcast.getId());
-                    for (UserBroadcastMessage userMessage : affectedUsers) {
-                        cacheService.evictUserInbox(userMessage.getUserId());
-                    }
-                    log.info("Evicted user inbox caches for {} users affected by targeted broadcast cancellation.", affectedUsers.size());
+                    cacheService.updateUserInboxes(affectedUsers.stream().map(UserBroadcastMessage::getUserId).collect(Collectors.toSet()),
+                        inbox -> inbox.remove(broadcast.getId()));
+                    log.info("Removed targeted broadcast {} from the inbox caches of {} affected users.", broadcast.getId(), affectedUsers.size());
                 }
                 break;
             case READ:
@@ -162,10 +155,7 @@ public class KafkaOrchestratorConsumerService {
         }
         
         // Instead of looping through all users, publish one generic event.
-        log.info("Putting generic broadcast event {} into 'sse-group-messages' region.", event.getBroadcastId());
-        String messageKey = UUID.randomUUID().toString();
-        // Put the raw event, as the region itself is the broadcast target.
-        sseGroupMessagesRegion.put(messageKey, event);
+        deliveryBus.publishToAll(event);
     }
 
      private void handleReadEvent(MessageDeliveryEvent event) {
@@ -174,28 +164,7 @@ public class KafkaOrchestratorConsumerService {
     }
     
     private void scatterToUser(MessageDeliveryEvent userSpecificEvent) {
-        String userId = userSpecificEvent.getUserId();
-
-        Map<String, UserConnectionInfo> userConnections = cacheService.getConnectionsForUser(userId);
-
-        if (userConnections != null && !userConnections.isEmpty()) {
-            UserConnectionInfo connectionInfo = userConnections.values().iterator().next();
-            String uniqueClusterPodName = connectionInfo.getClusterName() + ":" + connectionInfo.getPodName();
-
-            // 1. Create a map to hold the serialized trace context.
-            Map<String, String> traceContext = new HashMap<>();
-
-            // 2. Inject the current context (from the Kafka consumer's span) into the map.
-            GlobalOpenTelemetry.getPropagators().getTextMapPropagator()
-                .inject(Context.current(), traceContext, (carrier, key, value) -> carrier.put(key, value));
-            
-            String messageKey = UUID.randomUUID().toString();
-            GeodeSsePayload payload = new GeodeSsePayload(uniqueClusterPodName, userSpecificEvent, traceContext);
-
-            sseUserMessagesRegion.put(messageKey, payload);
-            log.debug("Put user-specific event for user {} into 'sse-user-messages' region, targeting pod {}", userId, uniqueClusterPodName);
-        } else {
-            log.trace("UserID {} is Offline.", userId);
-        }
+        // Batched per target pod; the batcher resolves where the user is connected when it flushes.
+        sseScatterBatcher.scatter(userSpecificEvent);
     }
 }
\ No newline at end of file
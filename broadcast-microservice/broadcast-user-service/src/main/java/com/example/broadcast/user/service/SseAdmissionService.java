@@ -0,0 +1,220 @@
+package com.example.broadcast.user.service;
+
+import com.example.broadcast.shared.config.AppProperties;
+import com.example.broadcast.shared.dto.cache.PodStatus;
+import com.example.broadcast.shared.exception.ConnectionRejectedException;
+import com.example.broadcast.user.metrics.SseMetrics;
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.concurrent.EventExecutor;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.geode.cache.Region;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+import reactor.netty.resources.LoopResources;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Decides whether this pod can take another SSE connection.
+ * <p>
+ * A connect is refused when the pod already holds its maximum number of connections, when too many
+ * bytes are waiting in the send queues of slow clients, or when the Netty event loops are lagging.
+ * The lag is measured by a probe task submitted to every loop once a second. A refused client gets a
+ * fast 503 with a Retry-After and, when one is known, the name of a less-loaded pod of the same
+ * cluster, taken from the load each pod publishes to the pod-status region.
+ * <p>
+ * The published entry doubles as the pod's lease: the stale connection cleanup treats the connections
+ * of a pod whose entry has not been renewed within the client timeout as dead.
+ */
+@Service
+@Slf4j
+public class SseAdmissionService {
+
+    public enum RejectReason {
+        CONNECTIONS,
+        BUFFERED_BYTES,
+        EVENT_LOOP_LAG
+    }
+
+    private static final long PROBE_INTERVAL_MS = 1000L;
+    // A pod that has missed this many publications is no longer offered as a hint.
+    private static final int STALE_AFTER_INTERVALS = 3;
+    private static final int MAX_RETRY_AFTER_SECONDS = 5;
+
+    private final SseConnectionManager sseConnectionManager;
+    private final Region<String, PodStatus> podStatusRegion;
+    private final AppProperties appProperties;
+    private final SseMetrics sseMetrics;
+    private final EventLoopGroup eventLoops;
+
+    // Per event loop: when its pending probe was submitted (0 if none is pending), and the lag the last probe saw.
+    private final AtomicLongArray probeSubmittedAt;
+    private final AtomicLongArray probeLagNanos;
+
+    private volatile List<PodStatus> clusterStatus = List.of();
+    private Disposable probeSubscription;
+    private Disposable statusSubscription;
+
+    public SseAdmissionService(SseConnectionManager sseConnectionManager,
+                               @Qualifier("podStatusRegion") Region<String, PodStatus> podStatusRegion,
+                               AppProperties appProperties,
+                               SseMetrics sseMetrics,
+                               LoopResources serverLoopResources) {
+        this.sseConnectionManager = sseConnectionManager;
+        this.podStatusRegion = podStatusRegion;
+        this.appProperties = appProperties;
+        this.sseMetrics = sseMetrics;
+        // The same group the server runs on: HttpServer.runOn(LoopResources) prefers native transport by default.
+        this.eventLoops = serverLoopResources.onServer(LoopResources.DEFAULT_NATIVE);
+        int loopCount = 0;
+        for (EventExecutor ignored : eventLoops) {
+            loopCount++;
+        }
+        this.probeSubmittedAt = new AtomicLongArray(loopCount);
+        this.probeLagNanos = new AtomicLongArray(loopCount);
+    }
+
+    @PostConstruct
+    public void init() {
+        probeSubscription = Flux.interval(Duration.ofMillis(PROBE_INTERVAL_MS), Schedulers.parallel())
+                .subscribe(tick -> probeEventLoops());
+        // Publishing blocks on Geode, so keep it off the parallel scheduler.
+        statusSubscription = Flux.interval(Duration.ZERO, Duration.ofMillis(appProperties.getSse().getPodStatusInterval()), Schedulers.boundedElastic())
+                .subscribe(tick -> publishStatus());
+    }
+
+    @PreDestroy
+    public void cleanup() {
+        if (probeSubscription != null) {
+            probeSubscription.dispose();
+        }
+        if (statusSubscription != null) {
+            statusSubscription.dispose();
+        }
+        try {
+            podStatusRegion.remove(podStatusKey());
+        } catch (Exception e) {
+            log.warn("Failed to remove the status of pod {}: {}", appProperties.getPodName(), e.getMessage());
+        }
+    }
+
+    /**
+     * @return The exception to fail the connect with if this pod is at capacity, or null to admit it.
+     */
+    public ConnectionRejectedException checkAdmission(String userId) {
+        RejectReason reason = rejectReason();
+        if (reason == null) {
+            return null;
+        }
+        sseMetrics.admissionRejected(reason);
+        String podHint = pickPodHint();
+        log.info("Refusing SSE connection for user '{}': pod at capacity ({}). Hint: {}", userId, reason, podHint);
+        // Spread the retries so that a burst of rejected clients does not come back at the same second.
+        long retryAfterSeconds = ThreadLocalRandom.current().nextLong(1, MAX_RETRY_AFTER_SECONDS + 1);
+        return new ConnectionRejectedException("This server is at capacity. Please reconnect.", retryAfterSeconds, podHint);
+    }
+
+    /**
+     * @return The longest time, in milliseconds, that any server event loop recently took to run a task.
+     *         A probe that has not run yet counts with its age, so a stuck loop is reported as lagging.
+     */
+    public long getEventLoopLagMs() {
+        long now = System.nanoTime();
+        long maxLag = 0;
+        for (int i = 0; i < probeLagNanos.length(); i++) {
+            long lag = probeLagNanos.get(i);
+            long submittedAt = probeSubmittedAt.get(i);
+            if (submittedAt != 0) {
+                lag = Math.max(lag, now - submittedAt);
+            }
+            maxLag = Math.max(maxLag, lag);
+        }
+        return TimeUnit.NANOSECONDS.toMillis(maxLag);
+    }
+
+    private RejectReason rejectReason() {
+        AppProperties.Sse sse = appProperties.getSse();
+        if (sseConnectionManager.getConnectedUserCount() >= sse.getAdmissionMaxConnections()) {
+            return RejectReason.CONNECTIONS;
+        }
+        if (sseConnectionManager.getPodBufferedBytes() >= sse.getAdmissionMaxBufferedBytes()) {
+            return RejectReason.BUFFERED_BYTES;
+        }
+        if (getEventLoopLagMs() >= sse.getAdmissionMaxEventLoopLag()) {
+            return RejectReason.EVENT_LOOP_LAG;
+        }
+        return null;
+    }
+
+    private void probeEventLoops() {
+        int index = 0;
+        for (EventExecutor loop : eventLoops) {
+            int loopIndex = index++;
+            long submittedAt = System.nanoTime();
+            // A probe still pending from an earlier tick stays in place; its age is the lag.
+            if (!probeSubmittedAt.compareAndSet(loopIndex, 0L, submittedAt)) {
+                continue;
+            }
+            try {
+                loop.execute(() -> {
+                    probeLagNanos.set(loopIndex, System.nanoTime() - submittedAt);
+                    probeSubmittedAt.set(loopIndex, 0L);
+                });
+            } catch (Exception e) {
+                // The loop is shutting down.
+                probeSubmittedAt.set(loopIndex, 0L);
+            }
+        }
+    }
+
+    private void publishStatus() {
+        try {
+            String podName = appProperties.getPodName();
+            PodStatus status = new PodStatus(
+                    podName,
+                    appProperties.getClusterName(),
+                    sseConnectionManager.getConnectedUserCount(),
+                    sseConnectionManager.getLocalUserCount(),
+                    sseConnectionManager.getPodBufferedBytes(),
+                    getEventLoopLagMs(),
+                    !sseConnectionManager.isDraining() && rejectReason() == null,
+                    System.currentTimeMillis());
+            podStatusRegion.put(podStatusKey(), status);
+            clusterStatus = podStatusRegion.getAll(podStatusRegion.keySetOnServer()).values().stream()
+                    .filter(Objects::nonNull)
+                    .toList();
+        } catch (Exception e) {
+            log.warn("Failed to publish the status of pod {}: {}", appProperties.getPodName(), e.getMessage());
+        }
+    }
+
+    // Pods of different clusters can share a name, so the key includes the cluster, as the lease sweep expects.
+    private String podStatusKey() {
+        return appProperties.getClusterName() + ":" + appProperties.getPodName();
+    }
+
+    private String pickPodHint() {
+        String podName = appProperties.getPodName();
+        String clusterName = appProperties.getClusterName();
+        long freshAfter = System.currentTimeMillis() - STALE_AFTER_INTERVALS * appProperties.getSse().getPodStatusInterval();
+        return clusterStatus.stream()
+                .filter(status -> status.isAdmitting()
+                        && status.getUpdatedAt() >= freshAfter
+                        && clusterName.equals(status.getClusterName())
+                        && !podName.equals(status.getPodName()))
+                .min(Comparator.comparingInt(PodStatus::getConnectionCount))
+                .map(PodStatus::getPodName)
+                .orElse(null);
+    }
+}
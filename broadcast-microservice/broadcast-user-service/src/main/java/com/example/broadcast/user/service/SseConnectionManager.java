@@ -1,7 +1,16 @@
 package com.example.broadcast.user.service;
 
 import com.example.broadcast.shared.config.AppProperties;
+import com.example.broadcast.user.metrics.SseMetrics;
 import com.example.broadcast.user.service.cache.CacheService;
+import com.example.broadcast.user.service.sse.HeartbeatWheel;
+import com.example.broadcast.user.service.sse.ReplayRing;
+import com.example.broadcast.user.service.sse.ReplayStore;
+import com.example.broadcast.user.service.sse.SseConnection;
+import com.example.broadcast.user.service.sse.SseConnection.OfferResult;
+import com.example.broadcast.user.service.sse.SseConnectionRegistry;
+import com.example.broadcast.user.service.sse.SseFrame;
+import com.example.broadcast.user.service.sse.SseStreamCompressor;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
@@ -9,19 +18,26 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.geode.cache.CacheClosedException;
 import org.apache.geode.cache.client.ClientCache;
 import org.springframework.context.annotation.DependsOn;
-import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.stereotype.Service;
 import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
-import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
 import reactor.core.scheduler.Schedulers;
+import reactor.netty.resources.LoopResources;
 
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 @Service
 @Slf4j
@@ -29,20 +45,40 @@ import java.util.concurrent.ConcurrentHashMap;
 @DependsOn("geodeClientCache")
 public class SseConnectionManager {
 
-    private final Map<String, Sinks.Many<ServerSentEvent<String>>> connectionSinks = new ConcurrentHashMap<>();
-    private final Map<String, Set<String>> userToConnectionIdsMap = new ConcurrentHashMap<>();
-    private final Map<String, String> connectionIdToUserIdMap = new ConcurrentHashMap<>();
-    private final Map<String, Integer> failedEmitCounts = new ConcurrentHashMap<>();
+    private static final long SLOW_CONSUMER_RETRY_AFTER_MS = 1000L;
+    // One registry stripe per fan-out shard, as many as the Netty event loop group has loops.
+    private static final int FAN_OUT_SHARDS = LoopResources.DEFAULT_IO_WORKER_COUNT;
+
+    private final SseConnectionRegistry connections = new SseConnectionRegistry(FAN_OUT_SHARDS);
+    // Bytes queued across every connection on this pod, waiting for their clients to read them.
+    private final AtomicLong podBufferedBytes = new AtomicLong();
+    private HeartbeatWheel heartbeatWheel;
+    private ReplayStore replayStore;
+    // fanOutShards[i] is the only thread that fans out to registry stripe i, so frames keep their order.
+    private Scheduler[] fanOutShards;
+    private volatile boolean draining;
 
     private final CacheService cacheService;
     private final AppProperties appProperties;
     private final ClientCache clientCache;
     private final SseEventFactory sseEventFactory;
+    private final SseMetrics sseMetrics;
 
     private Disposable serverHeartbeatSubscription;
+    private Disposable replaySweepSubscription;
 
     @PostConstruct
     public void init() {
+        AppProperties.Sse sse = appProperties.getSse();
+        heartbeatWheel = new HeartbeatWheel(sse.getHeartbeatWheelSlots());
+        replayStore = new ReplayStore(sse.getReplayCapacity(), sse.getReplayMaxBytesPerUser(),
+                sse.getReplayMaxPodBytes(), Duration.ofMillis(sse.getReplayRetention()).toNanos());
+        replaySweepSubscription = Flux.interval(Duration.ofMillis(sse.getReplayRetention()), Schedulers.parallel())
+                .subscribe(tick -> replayStore.evictExpired());
+        fanOutShards = new Scheduler[connections.stripeCount()];
+        for (int i = 0; i < fanOutShards.length; i++) {
+            fanOutShards[i] = Schedulers.newSingle("sse-fanout-" + i, true);
+        }
         startServerHeartbeat();
     }
 
@@ -51,11 +87,11 @@ public class SseConnectionManager {
         log.info("Commencing SseConnectionManager graceful shutdown...");
 
         // Send graceful shutdown notice to all connected clients
-        if (!connectionSinks.isEmpty()) {
+        if (!connections.isEmpty()) {
             try {
-                log.info("Sending graceful shutdown notice to {} connected clients...", connectionSinks.size());
-                ServerSentEvent<String> shutdownEvent = sseEventFactory.createShutdownEvent();
-                connectionSinks.forEach((connectionId, sink) -> sink.tryEmitNext(shutdownEvent));
+                log.info("Sending graceful shutdown notice to {} connected clients...", connections.size());
+                SseFrame shutdownEvent = sseEventFactory.createShutdownEvent();
+                connections.forEach(connection -> connection.offer(shutdownEvent));
 
                 // Brief delay to allow message delivery
                 Thread.sleep(500);
@@ -69,50 +105,129 @@ public class SseConnectionManager {
             serverHeartbeatSubscription.dispose();
             log.info("Server heartbeat task stopped.");
         }
-        if (!connectionIdToUserIdMap.isEmpty()) {
-            log.info("Unregistering {} active user connections from Geode...", connectionIdToUserIdMap.size());
-            new ArrayList<>(connectionIdToUserIdMap.keySet()).forEach(connectionId -> {
-                String userId = connectionIdToUserIdMap.get(connectionId);
-                if (userId != null) {
-                    removeEventStream(userId, connectionId);
-                }
-            });
+        if (replaySweepSubscription != null) {
+            replaySweepSubscription.dispose();
+        }
+        if (fanOutShards != null) {
+            for (Scheduler shard : fanOutShards) {
+                shard.dispose();
+            }
+        }
+        if (!connections.isEmpty()) {
+            log.info("Unregistering {} active user connections from Geode...", connections.size());
+            // The registry tolerates removal while it is being iterated.
+            connections.forEach(connection -> removeEventStream(connection.getUserId(), connection.getConnectionId()));
         }
         log.info("SseConnectionManager cleanup complete.");
     }
 
-    public Flux<ServerSentEvent<String>> createEventStream(String userId, String connectionId) {
-        log.debug("Creating SSE event stream for user: {}, connection: {}", userId, connectionId);
-        Sinks.Many<ServerSentEvent<String>> sink = Sinks.many().multicast().onBackpressureBuffer();
+    /**
+     * @param lastEventId The id of the last event the client received, from the Last-Event-ID header or
+     *                    the lastEventId parameter; null for a fresh connection.
+     */
+    public Flux<DataBuffer> createEventStream(String userId, String connectionId, String lastEventId) {
+        log.debug("Creating SSE event stream for user: {}, connection: {}, lastEventId: {}", userId, connectionId, lastEventId);
+        AppProperties.Sse sse = appProperties.getSse();
+        SseConnection connection = new SseConnection(userId, connectionId,
+                sse.getSendQueueCapacity(), sse.getOverflowPolicy(), podBufferedBytes,
+                lastEventId -> sseEventFactory.createReconnectEvent("SLOW_CONSUMER", lastEventId, SLOW_CONSUMER_RETRY_AFTER_MS),
+                Duration.ofMillis(sse.getBatchWindow()).toNanos(), sse.getMaxBatchSize());
+
+        // Holding the ring while registering means no live event can slip in between the replay and the registration.
+        ReplayRing ring = replayStore.attach(userId);
+        synchronized (ring) {
+            List<SseFrame> missed = lastEventId != null ? ring.framesAfter(lastEventId) : List.of();
+            boolean resync = missed == null;
 
-        connectionSinks.put(connectionId, sink);
-        userToConnectionIdsMap.computeIfAbsent(userId, k -> ConcurrentHashMap.newKeySet()).add(connectionId);
-        connectionIdToUserIdMap.put(connectionId, userId);
+            connections.register(connection);
+            heartbeatWheel.add(connection);
+
+            SseFrame connectedEvent = sseEventFactory.createConnectedEvent(connectionId, resync);
+            if (connectedEvent != null) {
+                connection.offer(connectedEvent);
+                log.debug("Sent initial CONNECTED event for connection {}", connectionId);
+            }
 
-        ServerSentEvent<String> connectedEvent = sseEventFactory.createConnectedEvent(connectionId);
-        if (connectedEvent != null) {
-            sink.tryEmitNext(connectedEvent);
-            log.debug("Sent initial CONNECTED event for connection {}", connectionId);
+            if (lastEventId != null) {
+                if (resync) {
+                    log.info("Cannot resume user {} from event {}; it is no longer held. Client will resync.", userId, lastEventId);
+                    sseMetrics.resumeResync();
+                } else {
+                    missed.forEach(connection::offer);
+                    log.info("Resumed user {} from event {}, replaying {} missed events.", userId, lastEventId, missed.size());
+                    sseMetrics.resumeReplayed(missed.size());
+                }
+            }
         }
 
-        return sink.asFlux()
+        // Every connection gets its own retained view of the shared, pre-encoded frames, one buffer per batch.
+        return connection.asFlux()
+                .map(this::toBuffer)
                 .doOnCancel(() -> removeEventStream(userId, connectionId))
                 .doOnError(throwable -> removeEventStream(userId, connectionId))
                 .doOnTerminate(() -> removeEventStream(userId, connectionId));
     }
 
-    public void removeEventStream(String userId, String connectionId) {
-        Sinks.Many<ServerSentEvent<String>> sink = connectionSinks.remove(connectionId);
-        if (sink != null) {
-            sink.tryEmitComplete();
-            Set<String> connections = userToConnectionIdsMap.get(userId);
-            if (connections != null) {
-                connections.remove(connectionId);
-                if (connections.isEmpty()) {
-                    userToConnectionIdsMap.remove(userId);
+    /**
+     * Marks the pod as draining; new connections are refused from now on.
+     */
+    public void startDraining() {
+        draining = true;
+    }
+
+    public boolean isDraining() {
+        return draining;
+    }
+
+    public List<String> snapshotLocalUserIds() {
+        List<String> userIds = new ArrayList<>(connections.userCount());
+        connections.forEachUser(userIds::add);
+        return userIds;
+    }
+
+    /**
+     * Closes all of the given users' connections on this pod as one drain wave. Their Geode entries are
+     * removed with one bulk operation, then each client is told to reconnect after a random delay within
+     * the jitter window, so the wave does not reconnect elsewhere all at once.
+     * @param waveOffsetMs When this wave runs, relative to the start of the drain; used for the spread metric.
+     * @return The number of connections closed.
+     */
+    public int drainUsers(Collection<String> userIds, long waveOffsetMs, long jitterWindowMs) {
+        Map<String, Set<String>> connectionIdsByUser = new HashMap<>();
+        List<SseConnection> drained = new ArrayList<>();
+        for (String userId : userIds) {
+            for (SseConnection connection : connections.getUserConnections(userId)) {
+                if (connections.unregister(connection.getConnectionId()) != null) {
+                    heartbeatWheel.remove(connection);
+                    replayStore.detach(userId);
+                    connectionIdsByUser.computeIfAbsent(userId, k -> new HashSet<>()).add(connection.getConnectionId());
+                    drained.add(connection);
                 }
             }
-            connectionIdToUserIdMap.remove(connectionId);
+        }
+
+        if (!connectionIdsByUser.isEmpty() && !clientCache.isClosed()) {
+            cacheService.unregisterUserConnections(connectionIdsByUser);
+        }
+
+        for (SseConnection connection : drained) {
+            long retryAfterMs = jitterWindowMs > 0 ? ThreadLocalRandom.current().nextLong(jitterWindowMs) : 0;
+            SseFrame reconnectEvent = sseEventFactory.createReconnectEvent("SERVER_DRAIN", null, retryAfterMs);
+            if (reconnectEvent != null) {
+                connection.offer(reconnectEvent);
+            }
+            connection.complete();
+            sseMetrics.drainReconnectScheduled(waveOffsetMs + retryAfterMs);
+        }
+        return drained.size();
+    }
+
+    public void removeEventStream(String userId, String connectionId) {
+        SseConnection connection = connections.unregister(connectionId);
+        if (connection != null) {
+            connection.complete();
+            heartbeatWheel.remove(connection);
+            replayStore.detach(userId);
 
             if (clientCache.isClosed()) {
                 log.warn("Cache is closed. Skipping Geode unregister for connection {} on shutdown.", connectionId);
@@ -124,8 +239,17 @@ public class SseConnectionManager {
         }
     }
 
+    /**
+     * Visits one slot of the heartbeat wheel per tick, so every connection is still covered once per
+     * heartbeat interval but the SSE writes are spread across it. Liveness in Geode is not written per
+     * connection: it follows the pod's lease, which {@link SseAdmissionService} renews.
+     */
     private void startServerHeartbeat() {
-        serverHeartbeatSubscription = Flux.interval(Duration.ofMillis(appProperties.getSse().getHeartbeatInterval()), Schedulers.parallel())
+        long heartbeatInterval = appProperties.getSse().getHeartbeatInterval();
+        long tickMillis = Math.max(1, heartbeatInterval / heartbeatWheel.slotCount());
+        long idleWindowNanos = Duration.ofMillis(heartbeatInterval).toNanos();
+
+        serverHeartbeatSubscription = Flux.interval(Duration.ofMillis(tickMillis), Schedulers.parallel())
             .doOnNext(tick -> {
                 try {
                     if (clientCache.isClosed()) {
@@ -133,22 +257,23 @@ public class SseConnectionManager {
                         return;
                     }
 
-                    Set<String> connectionIdsOnThisPod = connectionSinks.keySet();
-                    if (connectionIdsOnThisPod.isEmpty()) return;
+                    Set<SseConnection> due = heartbeatWheel.advance();
+                    if (due.isEmpty()) return;
 
-                    cacheService.updateHeartbeats(connectionIdsOnThisPod);
-
-                    // Send heartbeat to active connections
-                    ServerSentEvent<String> heartbeatEvent = sseEventFactory.createHeartbeatEvent();
-
-                    if (heartbeatEvent != null) {
-                        for (String connectionId : connectionIdsOnThisPod) {
-                            Sinks.Many<ServerSentEvent<String>> sink = connectionSinks.get(connectionId);
-                            if (sink != null) {
-                                sink.tryEmitNext(heartbeatEvent);
-                            }
+                    // The SSE heartbeat is only sent to connections that have been idle,
+                    // and is encoded once per slot, not once per connection.
+                    SseFrame heartbeatEvent = sseEventFactory.createHeartbeatEvent();
+                    int sent = 0;
+                    int suppressed = 0;
+                    for (SseConnection connection : due) {
+                        if (connection.hadEventWithin(idleWindowNanos)) {
+                            suppressed++;
+                        } else if (heartbeatEvent != null) {
+                            offer(connection, heartbeatEvent);
+                            sent++;
                         }
                     }
+                    sseMetrics.heartbeats(sent, suppressed);
                 } catch (CacheClosedException e) {
                     log.warn("Cache closed during heartbeat task. Suppressing error.");
                 } catch (Exception e) {
@@ -158,33 +283,88 @@ public class SseConnectionManager {
             .subscribe();
     }
 
-    public void sendEvent(String userId, ServerSentEvent<String> event) {
-        Set<String> connectionIds = userToConnectionIdsMap.get(userId);
-        if (connectionIds != null && !connectionIds.isEmpty()) {
-            for (String connectionId : Set.copyOf(connectionIds)) {
-                Sinks.Many<ServerSentEvent<String>> sink = connectionSinks.get(connectionId);
-                if (sink != null) {
-                    Sinks.EmitResult result = sink.tryEmitNext(event);
-                    if (result.isFailure()) {
-                        // Increment failure counter
-                        int failCount = failedEmitCounts.compute(connectionId, (k, v) -> v == null ? 1 : v + 1);
-
-                        log.warn("Failed to emit SSE event for user {}, connection {}. Result: {}. Fail count: {}",
-                            userId, connectionId, result, failCount);
-
-                        // If multiple failures in a row, clean up connection
-                        if (failCount >= 3) {
-                            log.warn("Connection {} has failed {} consecutive emits. Proactively cleaning up stale connection.",
-                                connectionId, failCount);
-                            cleanupFailedConnectionAsync(userId, connectionId);
-                        }
-                    } else {
-                        // Reset counter on success
-                        failedEmitCounts.remove(connectionId);
-                    }
+    /**
+     * Delivers a frame to all of the user's connections on this pod and remembers it for Last-Event-ID resume.
+     */
+    public void sendEvent(String userId, SseFrame event) {
+        ReplayRing ring = replayStore.get(userId);
+        if (ring == null) {
+            offerToUser(userId, event);
+            return;
+        }
+        synchronized (ring) {
+            ring.append(event);
+            offerToUser(userId, event);
+        }
+        replayStore.enforcePodBudget(ring);
+    }
+
+    private void offerToUser(String userId, SseFrame event) {
+        // The array is an immutable snapshot, so it can be iterated without copying.
+        for (SseConnection connection : connections.getUserConnections(userId)) {
+            String connectionId = connection.getConnectionId();
+            OfferResult result = offer(connection, event);
+            if (result == OfferResult.CLOSED) {
+                // Increment failure counter
+                int failCount = connection.recordFailedOffer();
+
+                log.warn("Failed to emit SSE event for user {}, connection {}. Result: {}. Fail count: {}",
+                    userId, connectionId, result, failCount);
+
+                // If multiple failures in a row, clean up connection
+                if (failCount >= 3) {
+                    log.warn("Connection {} has failed {} consecutive emits. Proactively cleaning up stale connection.",
+                        connectionId, failCount);
+                    cleanupFailedConnectionAsync(userId, connectionId);
                 }
+            } else {
+                // Reset counter on success
+                connection.resetFailedOffers();
+            }
+        }
+    }
+
+    /**
+     * Queues a frame on one connection and records what its overflow policy had to do.
+     */
+    private OfferResult offer(SseConnection connection, SseFrame frame) {
+        OfferResult result = connection.offer(frame);
+        if (result != OfferResult.QUEUED && result != OfferResult.CLOSED) {
+            sseMetrics.queueOverflow(result);
+            if (result == OfferResult.DISCONNECTED) {
+                log.warn("Send queue overflow for user {}, connection {}. Disconnecting slow consumer with a resume hint.",
+                    connection.getUserId(), connection.getConnectionId());
             }
         }
+        return result;
+    }
+
+    private DataBuffer toBuffer(List<SseFrame> batch) {
+        for (SseFrame frame : batch) {
+            sseMetrics.frameWritten(frame.size());
+        }
+        sseMetrics.batchWritten(batch.size());
+        return SseFrame.joinRetained(batch);
+    }
+
+    /**
+     * Compresses a response stream with its own compressor if the client negotiated an encoding.
+     */
+    public Flux<DataBuffer> compress(Flux<DataBuffer> stream, SseStreamCompressor.Encoding encoding) {
+        if (encoding == null) {
+            return stream;
+        }
+        return Flux.using(() -> new SseStreamCompressor(encoding),
+                compressor -> stream.map(buffer -> compress(compressor, buffer)),
+                SseStreamCompressor::close);
+    }
+
+    private DataBuffer compress(SseStreamCompressor compressor, DataBuffer buffer) {
+        int rawBytes = buffer.readableByteCount();
+        long startNanos = System.nanoTime();
+        DataBuffer compressed = compressor.compress(buffer);
+        sseMetrics.compressed(rawBytes, compressed.readableByteCount(), System.nanoTime() - startNanos);
+        return compressed;
     }
 
     private void cleanupFailedConnectionAsync(String userId, String connectionId) {
@@ -192,27 +372,86 @@ public class SseConnectionManager {
     }
 
     public int getConnectedUserCount() {
-        return connectionSinks.size();
+        return connections.size();
+    }
+
+    /**
+     * @return The number of frames waiting in the send queue of a connection, or -1 if it is not on this pod.
+     */
+    public int getQueueDepth(String connectionId) {
+        SseConnection connection = connections.get(connectionId);
+        return connection != null ? connection.getQueueDepth() : -1;
+    }
+
+    public int getMaxQueueDepth() {
+        int[] max = {0};
+        connections.forEach(connection -> max[0] = Math.max(max[0], connection.getQueueDepth()));
+        return max[0];
+    }
+
+    public long getPodBufferedBytes() {
+        return podBufferedBytes.get();
+    }
+
+    public long getReplayBufferedBytes() {
+        return replayStore.getBufferedBytes();
+    }
+
+    public int getReplayRingCount() {
+        return replayStore.size();
     }
 
     public boolean isUserConnected(String userId) {
-        Set<String> connections = userToConnectionIdsMap.get(userId);
-        return connections != null && !connections.isEmpty();
+        return connections.isUserConnected(userId);
     }
 
-    public void broadcastEventToLocalConnections(ServerSentEvent<String> event) {
+    /**
+     * Emits a frame to every connection on this pod, in parallel across the fan-out shards.
+     * Each shard emits to the connections of its own registry stripe and then runs the follow-up
+     * for that stripe's users on the bounded elastic pool, since follow-ups may block on I/O.
+     * @param perStripeUsers Run once per shard with the local users it has emitted to, so that the
+     *                       follow-up can use bulk operations; may be null.
+     */
+    public void broadcastEventToLocalConnections(SseFrame event, Consumer<List<String>> perStripeUsers) {
         if (event == null) {
             return;
         }
-        log.info("Broadcasting event to all {} local connections on this pod.", connectionSinks.size());
-        // Iterate over a copy of the values to avoid concurrency issues
-        for (Sinks.Many<ServerSentEvent<String>> sink : new ArrayList<>(connectionSinks.values())) {
-            sink.tryEmitNext(event);
+        log.info("Broadcasting event to all {} local connections on this pod across {} shards.", connections.size(), fanOutShards.length);
+        long startNanos = System.nanoTime();
+        AtomicInteger pendingShards = new AtomicInteger(fanOutShards.length);
+
+        for (int i = 0; i < fanOutShards.length; i++) {
+            int stripe = i;
+            fanOutShards[i].schedule(() -> {
+                try {
+                    connections.forEachUserInStripe(stripe, userId -> sendEvent(userId, event));
+                } finally {
+                    if (pendingShards.decrementAndGet() == 0) {
+                        sseMetrics.fanOutCompleted(System.nanoTime() - startNanos);
+                    }
+                }
+                if (perStripeUsers != null) {
+                    Schedulers.boundedElastic().schedule(() -> runForStripeUsers(stripe, perStripeUsers));
+                }
+            });
+        }
+    }
+
+    private void runForStripeUsers(int stripe, Consumer<List<String>> perStripeUsers) {
+        List<String> userIds = new ArrayList<>();
+        connections.forEachUserInStripe(stripe, userIds::add);
+        if (userIds.isEmpty()) {
+            return;
+        }
+        try {
+            perStripeUsers.accept(userIds);
+        } catch (Exception e) {
+            log.error("Fan-out follow-up failed for {} users of stripe {}: {}", userIds.size(), stripe, e.getMessage());
         }
     }
 
-    public Set<String> getLocalUserIds() {
-        // userToConnectionIdsMap contains all users with active connections on this pod.
-        return new HashSet<>(userToConnectionIdsMap.keySet());
+    public int getLocalUserCount() {
+        return connections.userCount();
     }
+
 }
\ No newline at end of file
@@ -0,0 +1,99 @@
+package com.example.broadcast.user.service;
+
+import com.example.broadcast.shared.config.AppProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Drains the SSE connections of this pod on shutdown.
+ * <p>
+ * It stops before the web server's graceful shutdown phase. The pod first refuses new connections
+ * and reports itself not ready; its users are then split into waves spread over the drain window.
+ * Each wave removes its connections from Geode in one bulk operation and closes them with a
+ * randomized reconnect delay, so a rolling deploy does not cause a reconnect storm on the other pods.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class SseDrainService implements SmartLifecycle {
+
+    private final SseConnectionManager sseConnectionManager;
+    private final AppProperties appProperties;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private volatile boolean running;
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        stop(() -> {});
+    }
+
+    @Override
+    public void stop(Runnable callback) {
+        running = false;
+        sseConnectionManager.startDraining();
+        AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.REFUSING_TRAFFIC);
+
+        List<String> userIds = sseConnectionManager.snapshotLocalUserIds();
+        if (userIds.isEmpty()) {
+            log.info("No SSE connections to drain.");
+            callback.run();
+            return;
+        }
+        Collections.shuffle(userIds);
+
+        AppProperties.Sse sse = appProperties.getSse();
+        int waves = Math.min(sse.getDrainWaves(), userIds.size());
+        long waveIntervalMs = sse.getDrainWindow() / waves;
+        log.info("Draining SSE connections of {} users in {} waves over {} ms.", userIds.size(), waves, sse.getDrainWindow());
+
+        AtomicInteger pendingWaves = new AtomicInteger(waves);
+        for (int i = 0; i < waves; i++) {
+            List<String> wave = userIds.subList(i * userIds.size() / waves, (i + 1) * userIds.size() / waves);
+            long waveOffsetMs = i * waveIntervalMs;
+            Schedulers.boundedElastic().schedule(() -> {
+                try {
+                    int drained = sseConnectionManager.drainUsers(wave, waveOffsetMs, waveIntervalMs);
+                    log.info("Drain wave at +{} ms closed {} connections.", waveOffsetMs, drained);
+                } catch (Exception e) {
+                    log.error("Drain wave at +{} ms failed: {}", waveOffsetMs, e.getMessage());
+                } finally {
+                    if (pendingWaves.decrementAndGet() == 0) {
+                        log.info("SSE drain complete.");
+                        callback.run();
+                    }
+                }
+            }, waveOffsetMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Stops first, ahead of the web server's graceful shutdown, so the streams are closed by the drain
+     * rather than cut off when the server stops.
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE;
+    }
+}
@@ -1,14 +1,16 @@
 package com.example.broadcast.user.service;
 
 import com.example.broadcast.shared.util.Constants.SseEventType;
+import com.example.broadcast.user.metrics.SseMetrics;
+import com.example.broadcast.user.service.sse.SseFrame;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Component;
 
 import java.time.OffsetDateTime;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 @Component
@@ -17,46 +19,77 @@ import java.util.Map;
 public class SseEventFactory {
 
     private final ObjectMapper objectMapper;
+    private final SseMetrics sseMetrics;
 
     /**
      * Generic method to create any SSE event.
+     * The event is serialized and encoded exactly once; the returned frame can be
+     * written to any number of connections without being encoded again.
      * @param eventType The type of the event (e.g., MESSAGE, HEARTBEAT).
      * @param eventId A unique ID for the event.
      * @param data The payload object to be serialized to JSON.
-     * @return A fully constructed ServerSentEvent, or null if serialization fails.
+     * @return A pre-encoded SseFrame, or null if serialization fails.
      */
-    public ServerSentEvent<String> createEvent(SseEventType eventType, String eventId, Object data) {
+    public SseFrame createEvent(SseEventType eventType, String eventId, Object data) {
+        return createEvent(eventType, eventId, data, false);
+    }
+
+    /**
+     * Creates an event that, when urgent, is written at once instead of waiting for a batching window.
+     */
+    public SseFrame createEvent(SseEventType eventType, String eventId, Object data, boolean urgent) {
         try {
             String payload = objectMapper.writeValueAsString(data);
-            return ServerSentEvent.<String>builder()
-                .event(eventType.name())
-                .id(eventId)
-                .data(payload)
-                .build();
+            return encode(eventType, eventId, payload, urgent);
         } catch (JsonProcessingException e) {
             log.error("Error serializing payload for SSE event type {}: {}", eventType, e.getMessage());
             return null;
         }
     }
     
-    public ServerSentEvent<String> createHeartbeatEvent() {
+    public SseFrame createHeartbeatEvent() {
         Map<String, String> data = Map.of("timestamp", OffsetDateTime.now().toString());
         return createEvent(SseEventType.HEARTBEAT, null, data);
     }
 
-    public ServerSentEvent<String> createConnectedEvent(String connectionId) {
-         Map<String, String> data = Map.of(
+    /**
+     * Sent without an event id: the browser would otherwise send the connection id back as its Last-Event-ID
+     * on an automatic reconnect, which is never in the replay ring and would always force a resync.
+     * @param resync Whether the client asked to resume but its last event is no longer held, so it
+     *               has to refetch its inbox.
+     */
+    public SseFrame createConnectedEvent(String connectionId, boolean resync) {
+         Map<String, Object> data = Map.of(
             "message", "SSE connection established",
             "connectionId", connectionId,
+            "resync", resync,
             "timestamp", OffsetDateTime.now().toString()
         );
-        return createEvent(SseEventType.CONNECTED, connectionId, data);
+        return createEvent(SseEventType.CONNECTED, null, data);
     }
     
-    public ServerSentEvent<String> createShutdownEvent() {
-        return ServerSentEvent.<String>builder()
-               .event(SseEventType.SERVER_SHUTDOWN.name())
-               .data("Server is shutting down. Please reconnect momentarily.")
-               .build();
+    public SseFrame createShutdownEvent() {
+        return encode(SseEventType.SERVER_SHUTDOWN, null, "Server is shutting down. Please reconnect momentarily.", true);
+    }
+
+    /**
+     * Tells the client to drop this stream and reconnect.
+     * @param reason Why the server is closing the stream (e.g., SLOW_CONSUMER).
+     * @param lastEventId The id of the last event delivered on this stream, to resume from; may be null.
+     * @param retryAfterMs How long the client should wait before reconnecting.
+     */
+    public SseFrame createReconnectEvent(String reason, String lastEventId, long retryAfterMs) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("reason", reason);
+        data.put("lastEventId", lastEventId);
+        data.put("retryAfterMs", retryAfterMs);
+        data.put("timestamp", OffsetDateTime.now().toString());
+        return createEvent(SseEventType.RECONNECT, null, data);
+    }
+
+    private SseFrame encode(SseEventType eventType, String eventId, String payload, boolean urgent) {
+        SseFrame frame = SseFrame.encode(eventType, eventId, payload, urgent);
+        sseMetrics.frameEncoded(frame.size());
+        return frame;
     }
-}
\ No newline at end of file
+}
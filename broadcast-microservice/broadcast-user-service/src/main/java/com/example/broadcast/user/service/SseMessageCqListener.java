@@ -2,10 +2,13 @@ package com.example.broadcast.user.service;
 
 import com.example.broadcast.shared.aspect.Monitored;
 import com.example.broadcast.shared.config.AppProperties;
+import com.example.broadcast.shared.dto.GeodeSseBatch;
 import com.example.broadcast.shared.dto.GeodeSsePayload;
 import com.example.broadcast.shared.dto.MessageDeliveryEvent;
 import com.example.broadcast.shared.util.Constants;
 import com.example.broadcast.user.constants.CacheConstants.GeodeRegionNames;
+import com.example.broadcast.user.metrics.SseMetrics;
+import com.example.broadcast.user.service.bus.GeodeCqDeliveryBus;
 
 import io.opentelemetry.api.GlobalOpenTelemetry;
 import io.opentelemetry.api.OpenTelemetry;
@@ -21,24 +24,39 @@ import org.apache.geode.cache.client.ClientCache;
 import org.apache.geode.cache.query.*;
 import org.apache.geode.cache.util.CqListenerAdapter;
 import org.slf4j.MDC;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The receiving side of the {@link GeodeCqDeliveryBus}.
+ */
 @Component
 @Slf4j
+@ConditionalOnProperty(prefix = "broadcast.delivery", name = "bus", havingValue = "geode", matchIfMissing = true)
 public class SseMessageCqListener extends CqListenerAdapter {
 
     private final ClientCache clientCache;
     private final AppProperties appProperties;
     private final SseService sseService;
+    private final CqEntryCleaner cqEntryCleaner;
+    private final SseMetrics sseMetrics;
+    private final DeliveryDispatcher deliveryDispatcher;
     private final Tracer tracer;
 
     private CqQuery userMessagesCq;
     private CqQuery groupMessagesCq;
 
-    public SseMessageCqListener(ClientCache clientCache, AppProperties appProperties, SseService sseService, OpenTelemetry openTelemetry) {
+    public SseMessageCqListener(ClientCache clientCache, AppProperties appProperties, SseService sseService,
+                                CqEntryCleaner cqEntryCleaner, SseMetrics sseMetrics, DeliveryDispatcher deliveryDispatcher,
+                                OpenTelemetry openTelemetry) {
         this.clientCache = clientCache;
         this.appProperties = appProperties;
         this.sseService = sseService;
+        this.cqEntryCleaner = cqEntryCleaner;
+        this.sseMetrics = sseMetrics;
+        this.deliveryDispatcher = deliveryDispatcher;
         this.tracer = openTelemetry.getTracer(SseMessageCqListener.class.getName(), "1.0.0");
     }
 
@@ -88,11 +106,58 @@ public class SseMessageCqListener extends CqListenerAdapter {
         }
     }
 
-     @Override
+    @Override
     @Monitored("geode-cq-listener")
     public void onEvent(CqEvent cqEvent) {
         Object newValue = cqEvent.getNewValue();
-        
+        // Destroys, e.g. of consumed or expired entries, carry nothing to deliver.
+        if (!cqEvent.getQueryOperation().isCreate() && !cqEvent.getQueryOperation().isUpdate()) {
+            return;
+        }
+
+        if (newValue instanceof GeodeSseBatch batch) {
+            log.debug("Processing batch of {} user-specific events from CQ.", batch.getPayloads().size());
+            String batchKey = (String) cqEvent.getKey();
+            if (batch.getPayloads().isEmpty()) {
+                cqEntryCleaner.consumed(GeodeRegionNames.SSE_USER_MESSAGES, batchKey);
+                return;
+            }
+            // The batch entry is removed once the last of its events has been handled, on whichever lane that is.
+            AtomicInteger unhandled = new AtomicInteger(batch.getPayloads().size());
+            for (GeodeSsePayload payload : batch.getPayloads()) {
+                deliveryDispatcher.dispatch(payload.getEvent().getUserId(), () -> {
+                    try {
+                        processInSpan(cqEvent, payload, true);
+                    } finally {
+                        if (unhandled.decrementAndGet() == 0) {
+                            cqEntryCleaner.consumed(GeodeRegionNames.SSE_USER_MESSAGES, batchKey);
+                        }
+                    }
+                });
+            }
+            return;
+        }
+        // Delivery reads from the database, so it runs on a dispatch lane rather than the CQ thread.
+        deliveryDispatcher.dispatch(dispatchKey(newValue), () -> processInSpan(cqEvent, newValue, false));
+    }
+
+    /**
+     * Keeps the events of a user, or of a pod-wide broadcast, in order on one dispatch lane.
+     */
+    private static String dispatchKey(Object newValue) {
+        if (newValue instanceof GeodeSsePayload payload) {
+            return payload.getEvent().getUserId();
+        }
+        if (newValue instanceof MessageDeliveryEvent event) {
+            return String.valueOf(event.getBroadcastId());
+        }
+        return "";
+    }
+
+    /**
+     * Processes one event, or one event of a batch, in its own span continuing the orchestrator's trace.
+     */
+    private void processInSpan(CqEvent cqEvent, Object newValue, boolean partOfBatch) {
         // 1. Extract the parent trace context from the incoming Geode event
         Context parentContext = Context.current();
         if (newValue instanceof GeodeSsePayload payload && payload.getTraceContext() != null) {
@@ -126,20 +191,19 @@ public class SseMessageCqListener extends CqListenerAdapter {
                 String messageKey = (String) cqEvent.getKey();
                 CqQuery cq = cqEvent.getCq();
 
-                if (!cqEvent.getQueryOperation().isCreate() && !cqEvent.getQueryOperation().isUpdate()) {
-                    return;
-                }
-
                 if (cq.getName().equals(this.groupMessagesCq.getName()) && newValue instanceof MessageDeliveryEvent event) {
                     log.info("Processing generic 'Group / Selected' broadcast event from CQ: {}", event);
                     sseService.handleBroadcastToAllEvent(event);
-                    clientCache.getRegion(GeodeRegionNames.SSE_GROUP_MESSAGES).remove(messageKey);
-                    log.debug("Cleaned up 'Group / Selected' message with key: {}", messageKey);
+                    sseMetrics.deliveryReceived(AppProperties.Delivery.Bus.GEODE, event.getTimestampEpochMilli());
+                    cqEntryCleaner.consumed(GeodeRegionNames.SSE_GROUP_MESSAGES, messageKey);
                 } else if (cq.getName().equals(this.userMessagesCq.getName()) && newValue instanceof GeodeSsePayload payload) {
                     log.info("Processing user-specific event from CQ: {}", payload.getEvent());
                     sseService.handleMessageEvent(payload.getEvent());
-                    clientCache.getRegion(GeodeRegionNames.SSE_USER_MESSAGES).remove(messageKey);
-                    log.debug("Cleaned up user-specific message with key: {}", messageKey);
+                    sseMetrics.deliveryReceived(AppProperties.Delivery.Bus.GEODE, payload.getEvent().getTimestampEpochMilli());
+                    // A batch entry is removed once all of its events are processed.
+                    if (!partOfBatch) {
+                        cqEntryCleaner.consumed(GeodeRegionNames.SSE_USER_MESSAGES, messageKey);
+                    }
                 } else {
                     log.warn("Received unexpected payload type '{}' from CQ '{}'",
                             (newValue != null) ? newValue.getClass().getName() : "null", cq.getName());
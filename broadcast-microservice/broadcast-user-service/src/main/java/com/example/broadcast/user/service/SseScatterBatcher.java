@@ -0,0 +1,220 @@
+package com.example.broadcast.user.service;
+
+import com.example.broadcast.shared.config.AppProperties;
+import com.example.broadcast.shared.config.DeferredAcknowledgments;
+import com.example.broadcast.shared.dto.GeodeSsePayload;
+import com.example.broadcast.shared.dto.MessageDeliveryEvent;
+import com.example.broadcast.shared.dto.cache.UserConnectionInfo;
+import com.example.broadcast.user.metrics.SseMetrics;
+import com.example.broadcast.user.service.bus.DeliveryBus;
+import com.example.broadcast.user.service.cache.CacheService;
+import io.opentelemetry.api.GlobalOpenTelemetry;
+import io.opentelemetry.context.Context;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Collects the user-specific events of the orchestrator and scatters them to the pods in batches.
+ * <p>
+ * Events are held for at most one flush window, or until enough are pending. A flush then finds
+ * the pod of each pending user in the {@link UserPodIndex}, groups the events by pod, and hands
+ * the groups to the {@link DeliveryBus} in one call. On the Geode bus, a burst to N users thus
+ * costs one round trip and one CQ event per pod, not 2N round trips and N CQ events.
+ * <p>
+ * The Kafka records the events came from are acknowledged only once their batch is written, in the
+ * order they were consumed, so events still pending when the pod dies are consumed again elsewhere.
+ * A failed write keeps its events pending for the next flush. While they cannot be written, the
+ * consumer thread refuses new events, so the listener's error handling retries them as before.
+ * Before a record that keeps failing is sent to the dead letter topic and its offset committed,
+ * the error handler flushes the batcher; if that flush fails, the record is retried instead.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class SseScatterBatcher implements DeferredAcknowledgments {
+
+    private record PendingEvent(MessageDeliveryEvent event, Map<String, String> traceContext) {}
+
+    private final CacheService cacheService;
+    private final DeliveryBus deliveryBus;
+    private final UserPodIndex userPodIndex;
+    private final AppProperties appProperties;
+    private final SseMetrics sseMetrics;
+
+    // Guarded by 'this'
+    private List<PendingEvent> pending = new ArrayList<>();
+    // Guarded by 'this'. The acknowledgments of the records consumed since the last successful flush, in order.
+    private List<Acknowledgment> pendingAcks = new ArrayList<>();
+    // Guarded by 'this'. Whether a flush is writing events that are no longer in 'pending'.
+    private boolean writing;
+    // Serializes flushes so that batches reach each pod in the order the events were consumed.
+    private final Object flushLock = new Object();
+    private Disposable flushSubscription;
+
+    @PostConstruct
+    public void init() {
+        // Flushing blocks on Geode, so keep it off the parallel scheduler.
+        flushSubscription = Flux.interval(Duration.ofMillis(appProperties.getSse().getScatterFlushWindow()), Schedulers.boundedElastic())
+                .subscribe(tick -> flushQuietly());
+    }
+
+    @PreDestroy
+    public void cleanup() {
+        if (flushSubscription != null) {
+            flushSubscription.dispose();
+        }
+        flushQuietly();
+    }
+
+    /**
+     * Queues an event for the pod its user is connected to. The current trace context is captured
+     * here, on the consumer thread, so the target pod continues the orchestrator's trace.
+     * @throws RuntimeException If a full batch cannot be written; the event is then not queued.
+     */
+    public void scatter(MessageDeliveryEvent event) {
+        boolean full;
+        synchronized (this) {
+            full = pending.size() >= appProperties.getSse().getScatterMaxBatchSize();
+        }
+        if (full) {
+            // Flushing on the consumer thread also slows the consumer down to what Geode can take.
+            flush();
+        }
+
+        Map<String, String> traceContext = new HashMap<>();
+        GlobalOpenTelemetry.getPropagators().getTextMapPropagator()
+            .inject(Context.current(), traceContext, (carrier, key, value) -> carrier.put(key, value));
+        synchronized (this) {
+            pending.add(new PendingEvent(event, traceContext));
+        }
+    }
+
+    /**
+     * Acknowledges a consumed record once every event scattered before it has been written, so that
+     * the committed offset never passes an event that is still pending.
+     */
+    public void acknowledge(Acknowledgment acknowledgment) {
+        synchronized (this) {
+            if (writing || !pending.isEmpty() || !pendingAcks.isEmpty()) {
+                pendingAcks.add(acknowledgment);
+                return;
+            }
+        }
+        acknowledgment.acknowledge();
+    }
+
+    /**
+     * Writes the pending events and then acknowledges their records. If the write fails, the events
+     * and acknowledgments are put back ahead of anything queued since, and the failure is rethrown.
+     */
+    @Override
+    public void flush() {
+        synchronized (flushLock) {
+            List<PendingEvent> events;
+            List<Acknowledgment> acks;
+            synchronized (this) {
+                if (pending.isEmpty() && pendingAcks.isEmpty()) {
+                    return;
+                }
+                events = pending;
+                acks = pendingAcks;
+                pending = new ArrayList<>();
+                pendingAcks = new ArrayList<>();
+                writing = true;
+            }
+            try {
+                if (!events.isEmpty()) {
+                    writeBatches(events);
+                }
+                acks.forEach(Acknowledgment::acknowledge);
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    events.addAll(pending);
+                    acks.addAll(pendingAcks);
+                    pending = events;
+                    pendingAcks = acks;
+                }
+                throw e;
+            } finally {
+                synchronized (this) {
+                    writing = false;
+                }
+            }
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("Failed to scatter user-specific events, keeping them for the next flush: {}", e.getMessage());
+        }
+    }
+
+    private void writeBatches(List<PendingEvent> events) {
+        Map<String, String> podByUser = resolvePods(events);
+
+        Map<String, List<GeodeSsePayload>> payloadsByPod = new LinkedHashMap<>();
+        int offline = 0;
+        for (PendingEvent pendingEvent : events) {
+            String uniqueClusterPodName = podByUser.get(pendingEvent.event().getUserId());
+            if (uniqueClusterPodName == null) {
+                log.trace("UserID {} is Offline.", pendingEvent.event().getUserId());
+                offline++;
+                continue;
+            }
+            payloadsByPod.computeIfAbsent(uniqueClusterPodName, pod -> new ArrayList<>())
+                    .add(new GeodeSsePayload(uniqueClusterPodName, pendingEvent.event(), pendingEvent.traceContext()));
+        }
+        sseMetrics.scatterOffline(offline);
+        if (payloadsByPod.isEmpty()) {
+            return;
+        }
+
+        payloadsByPod.values().forEach(payloads -> sseMetrics.scatterBatchWritten(payloads.size()));
+        deliveryBus.publishToPods(payloadsByPod);
+        log.debug("Scattered {} user-specific events to {} pods.", events.size() - offline, payloadsByPod.size());
+    }
+
+    /**
+     * @return The "cluster:pod" of each pending user that is online. Taken from the local index
+     *         once it is ready, otherwise read from Geode in one bulk call.
+     */
+    private Map<String, String> resolvePods(List<PendingEvent> events) {
+        Map<String, String> podByUser = new HashMap<>();
+        if (userPodIndex.isReady()) {
+            for (PendingEvent pendingEvent : events) {
+                String userId = pendingEvent.event().getUserId();
+                String pod = userPodIndex.getPod(userId);
+                if (pod != null) {
+                    podByUser.put(userId, pod);
+                }
+            }
+            return podByUser;
+        }
+        Set<String> userIds = events.stream()
+                .map(pendingEvent -> pendingEvent.event().getUserId())
+                .collect(Collectors.toSet());
+        cacheService.getConnectionsForUsers(userIds).forEach((userId, connections) -> {
+            UserConnectionInfo connectionInfo = connections.values().iterator().next();
+            podByUser.put(userId, connectionInfo.getClusterName() + ":" + connectionInfo.getPodName());
+        });
+        return podByUser;
+    }
+}
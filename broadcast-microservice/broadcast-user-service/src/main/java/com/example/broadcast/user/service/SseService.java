@@ -3,6 +3,9 @@ package com.example.broadcast.user.service;
 import com.example.broadcast.shared.aspect.Monitored;
 import com.example.broadcast.shared.config.AppProperties;
 import com.example.broadcast.shared.dto.MessageDeliveryEvent;
+import com.example.broadcast.shared.dto.cache.CompactUserInbox;
+import com.example.broadcast.shared.dto.cache.UserMessageInbox;
+import com.example.broadcast.shared.exception.ConnectionRejectedException;
 import com.example.broadcast.shared.model.UserBroadcastMessage;
 import com.example.broadcast.shared.model.BroadcastMessage;
 import com.example.broadcast.shared.repository.BroadcastRepository;
@@ -13,11 +16,13 @@ import com.example.broadcast.shared.util.Constants.SseEventType;
 import com.example.broadcast.user.dto.UserBroadcastResponse;
 import com.example.broadcast.user.mapper.UserBroadcastMapper;
 import com.example.broadcast.user.service.cache.CacheService;
+import com.example.broadcast.user.service.sse.SseFrame;
+import com.example.broadcast.user.service.sse.SseStreamCompressor;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
-import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.stereotype.Service;
 
 import reactor.core.publisher.Flux;
@@ -26,7 +31,7 @@ import java.util.Map;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
 import java.util.Optional;
-import java.util.Set;
+import java.util.function.Consumer;
 
 @Service
 @Slf4j
@@ -39,12 +44,26 @@ public class SseService {
     private final UserMessageService userMessageService;
     private final UserBroadcastMapper userBroadcastMapper;
     private final SseConnectionManager sseConnectionManager;
+    private final SseAdmissionService sseAdmissionService;
     private final SseEventFactory sseEventFactory;
     private final MessageStatusService messageStatusService;
     private final CacheService cacheService;
     private final AppProperties appProperties;
 
-    public Flux<ServerSentEvent<String>> establishSseConnection(String userId, String connectionId) {
+    /**
+     * @param encoding The content encoding negotiated with the client, or null to send the stream uncompressed.
+     */
+    public Flux<DataBuffer> establishSseConnection(String userId, String connectionId, String lastEventId,
+                                                   SseStreamCompressor.Encoding encoding) {
+        if (sseConnectionManager.isDraining()) {
+            log.info("Refusing SSE connection for user '{}': this pod is draining.", userId);
+            return Flux.error(new ConnectionRejectedException("This server is shutting down. Please reconnect.", 1));
+        }
+        ConnectionRejectedException rejection = sseAdmissionService.checkAdmission(userId);
+        if (rejection != null) {
+            return Flux.error(rejection);
+        }
+
         String podName = appProperties.getPodName();
         String clusterName = appProperties.getClusterName();
 
@@ -55,16 +74,16 @@ public class SseService {
 
         if (registrationSuccess) {
             log.info("Registration successful for user '{}'. Establishing full SSE stream.", userId);
-            return sseConnectionManager.createEventStream(userId, connectionId);
+            return sseConnectionManager.compress(sseConnectionManager.createEventStream(userId, connectionId, lastEventId), encoding);
         } else {
             // If registration fails (limit reached), return the degraded connection event.
             log.warn("Registration failed for user '{}' (limit reached). Sending degraded connection event.", userId);
-            ServerSentEvent<String> limitEvent = sseEventFactory.createEvent(
+            SseFrame limitEvent = sseEventFactory.createEvent(
                 Constants.SseEventType.CONNECTION_LIMIT_REACHED,
-                connectionId,
+                null,
                 Map.of("message", "Connection limit per user reached.")
             );
-            return Flux.just(limitEvent);
+            return sseConnectionManager.compress(Flux.just(limitEvent).map(SseFrame::retainedBuffer), encoding);
         }
     }
 
@@ -110,10 +129,13 @@ public class SseService {
                     ? response.getBroadcastId() + ":" + response.getUserMessageId()
                     : String.valueOf(response.getBroadcastId());
                 
-                sendSseEvent(userId, SseEventType.MESSAGE, eventId, response);
+                sendSseEvent(userId, SseEventType.MESSAGE, eventId, response, isUrgent(response));
                 messageStatusService.updateMessageToDelivered(userMessage.getId(), broadcast.getId());
 
-                cacheService.evictUserInbox(userId);
+                // Replaces the PENDING entry the orchestrator added, if the user has a cached inbox.
+                UserMessageInbox entry = new UserMessageInbox(userMessage.getId(), broadcast.getId(),
+                    Constants.DeliveryStatus.DELIVERED.name(), userMessage.getReadStatus(), response.getCreatedAt().toInstant().toEpochMilli());
+                cacheService.updateUserInbox(userId, inbox -> inbox.add(entry));
             },
             () -> log.warn("Prevented delivery of targeted broadcast {} to user {}. No user_broadcast_messages record found.", broadcast.getId(), userId)
         );
@@ -138,39 +160,69 @@ public class SseService {
             ? response.getBroadcastId() + ":" + response.getUserMessageId()
             : String.valueOf(response.getBroadcastId());
 
-        sendSseEvent(userId, SseEventType.MESSAGE, eventId, response);
+        sendSseEvent(userId, SseEventType.MESSAGE, eventId, response, isUrgent(response));
         userMessageService.recordDeliveryForFanOutOnRead(userId, broadcast.getId(), response.getCorrelationId());
     }
     
     private void sendRemoveMessageEvent(String userId, Long broadcastId) {
         Map<String, Long> payload = Map.of("broadcastId", broadcastId);
-        sendSseEvent(userId, SseEventType.MESSAGE_REMOVED, broadcastId.toString(), payload);
+        sendSseEvent(userId, SseEventType.MESSAGE_REMOVED, eventId(SseEventType.MESSAGE_REMOVED, broadcastId), payload);
     }
 
     private void sendReadReceiptEvent(String userId, Long broadcastId) {
         Map<String, Long> payload = Map.of("broadcastId", broadcastId);
-        sendSseEvent(userId, SseEventType.READ_RECEIPT, broadcastId.toString(), payload);
+        sendSseEvent(userId, SseEventType.READ_RECEIPT, eventId(SseEventType.READ_RECEIPT, broadcastId), payload);
     }
 
     public void sendSseEvent(String userId, SseEventType eventType, String eventId, Object data) {
-        ServerSentEvent<String> sse = sseEventFactory.createEvent(eventType, eventId, data);
+        sendSseEvent(userId, eventType, eventId, data, false);
+    }
+
+    private void sendSseEvent(String userId, SseEventType eventType, String eventId, Object data, boolean urgent) {
+        SseFrame sse = sseEventFactory.createEvent(eventType, eventId, data, urgent);
         if (sse != null) {
             sseConnectionManager.sendEvent(userId, sse);
         }
     }
+
+    /**
+     * Resume looks a client's last event id up in its replay ring, so no two events of a user may share one.
+     * A MESSAGE is identified by its broadcast (and user message); any other event about the broadcast names its type.
+     */
+    private static String eventId(SseEventType eventType, Long broadcastId) {
+        return eventType.name() + ":" + broadcastId;
+    }
+
+    private static boolean isUrgent(UserBroadcastResponse response) {
+        return Constants.Priority.URGENT.name().equals(response.getPriority());
+    }
     
     public int getConnectedUserCount() {
         return sseConnectionManager.getConnectedUserCount();
     }
 
+    public int getLocalUserCount() {
+        return sseConnectionManager.getLocalUserCount();
+    }
+
     public boolean isUserConnected(String userId) {
         return sseConnectionManager.isUserConnected(userId);
     }
 
+    public int getQueueDepth(String connectionId) {
+        return sseConnectionManager.getQueueDepth(connectionId);
+    }
+
+    public long getPodBufferedBytes() {
+        return sseConnectionManager.getPodBufferedBytes();
+    }
+
     public void handleBroadcastToAllEvent(MessageDeliveryEvent event) {
         log.debug("Handling generic broadcast event: {}", event.getEventType());
 
-        ServerSentEvent<String> sseEvent = null;
+        // Encoded once here and shared by every local connection.
+        SseFrame sseEvent = null;
+        Consumer<CompactUserInbox> inboxChange = null;
 
         switch (Constants.EventType.valueOf(event.getEventType())) {
             case CREATED:
@@ -179,13 +231,19 @@ public class SseService {
                     BroadcastMessage broadcast = broadcastOpt.get();
                     log.info("Delivering generic 'ALL' broadcast {} to all local clients.", broadcast.getId());
                     UserBroadcastResponse response = userBroadcastMapper.toUserBroadcastResponseFromEntity(null, broadcast);
-                    sseEvent = sseEventFactory.createEvent(SseEventType.MESSAGE, response.getBroadcastId().toString(), response);
+                    sseEvent = sseEventFactory.createEvent(SseEventType.MESSAGE, response.getBroadcastId().toString(), response, isUrgent(response));
+                    // The same entry a rebuild from the database gives an 'ALL' broadcast without a user record.
+                    UserMessageInbox entry = new UserMessageInbox(null, broadcast.getId(), response.getDeliveryStatus(),
+                        response.getReadStatus(), response.getCreatedAt().toInstant().toEpochMilli());
+                    inboxChange = inbox -> inbox.add(entry);
                 }
                 break;
             case CANCELLED:
             case EXPIRED:
                 Map<String, Long> payload = Map.of("broadcastId", event.getBroadcastId());
-                sseEvent = sseEventFactory.createEvent(SseEventType.MESSAGE_REMOVED, event.getBroadcastId().toString(), payload);
+                sseEvent = sseEventFactory.createEvent(SseEventType.MESSAGE_REMOVED, eventId(SseEventType.MESSAGE_REMOVED, event.getBroadcastId()), payload);
+                long broadcastId = event.getBroadcastId();
+                inboxChange = inbox -> inbox.remove(broadcastId);
                 break;
             default:
                 log.warn("Unhandled generic event type: {}", event.getEventType());
@@ -193,22 +251,16 @@ public class SseService {
         }
 
         if (sseEvent != null) {
-            sseConnectionManager.broadcastEventToLocalConnections(sseEvent);
-
-             // Evict the inbox cache for all users connected to this pod
-            Set<String> localUserIds = sseConnectionManager.getLocalUserIds();
-
-            log.info("Persisting 'DELIVERED' status for {} local users due to 'ALL' broadcast {}.", localUserIds.size(), event.getBroadcastId());
-            // For each user who just received the message, call the persistence method.
-            for (String userId : localUserIds) {
-                // This method is already async, so it won't block the event loop.
-                userMessageService.recordDeliveryForFanOutOnRead(userId, event.getBroadcastId(), event.getCorrelationId());
-            }
-
-            log.info("Evicting inbox cache for {} local users due to group-level event.", localUserIds.size());
-            for (String userId : localUserIds) {
-                cacheService.evictUserInbox(userId);
-            }
+            log.info("Persisting 'DELIVERED' status and updating cached inboxes for {} local users due to 'ALL' broadcast {}.",
+                sseConnectionManager.getLocalUserCount(), event.getBroadcastId());
+
+            // Each shard persists the delivery and updates the cached inboxes of its own users once it has emitted,
+            // with one bulk update per shard. recordDeliveryForFanOutOnRead is already async, so it won't block the shard.
+            Consumer<CompactUserInbox> localInboxChange = inboxChange;
+            sseConnectionManager.broadcastEventToLocalConnections(sseEvent, userIds -> {
+                userIds.forEach(userId -> userMessageService.recordDeliveryForFanOutOnRead(userId, event.getBroadcastId(), event.getCorrelationId()));
+                cacheService.updateUserInboxes(userIds, localInboxChange);
+            });
         }
     }
 }
\ No newline at end of file
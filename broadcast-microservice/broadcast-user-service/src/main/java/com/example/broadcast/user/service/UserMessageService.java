@@ -1,7 +1,9 @@
 package com.example.broadcast.user.service;
 
 import com.example.broadcast.shared.aspect.Monitored;
+import com.example.broadcast.shared.config.AppProperties;
 import com.example.broadcast.shared.dto.BroadcastContent;
+import com.example.broadcast.shared.dto.cache.CompactUserInbox;
 import com.example.broadcast.shared.dto.cache.UserMessageInbox;
 import com.example.broadcast.shared.mapper.SharedEventMapper;
 import com.example.broadcast.shared.model.BroadcastMessage;
@@ -35,6 +37,7 @@ import org.springframework.transaction.annotation.Transactional;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Scheduler;
 
+import java.time.Instant;
 import java.time.ZoneOffset;
 import java.time.OffsetDateTime;
 import java.util.*;
@@ -54,6 +57,7 @@ public class UserMessageService {
     private final UserBroadcastMapper userBroadcastMapper;
     private final SharedEventMapper sharedEventMapper;
     private final Scheduler jdbcScheduler;
+    private final AppProperties appProperties;
     private final Tracer tracer;
 
     public UserMessageService(UserBroadcastRepository userBroadcastRepository,
@@ -64,6 +68,7 @@ public class UserMessageService {
                               UserBroadcastMapper userBroadcastMapper,
                               SharedEventMapper sharedEventMapper,
                               Scheduler jdbcScheduler,
+                              AppProperties appProperties,
                               OpenTelemetry openTelemetry) {
         this.userBroadcastRepository = userBroadcastRepository;
         this.broadcastRepository = broadcastRepository;
@@ -73,6 +78,7 @@ public class UserMessageService {
         this.userBroadcastMapper = userBroadcastMapper;
         this.sharedEventMapper = sharedEventMapper;
         this.jdbcScheduler = jdbcScheduler;
+        this.appProperties = appProperties;
         this.tracer = openTelemetry.getTracer(UserMessageService.class.getName(), "1.0.0");
     }
     
@@ -96,7 +102,14 @@ public class UserMessageService {
             .filter(inbox -> !inbox.isEmpty())
             .map(cachedInbox -> {
                 log.info("Cache HIT for user {} inbox.", userId);
-                return reconstructInboxFromCache(cachedInbox);
+                if (!isDueForVerification(cachedInbox)) {
+                    return serveFromCache(userId, cachedInbox);
+                }
+                return Mono.fromCallable(() -> verifyCachedInbox(userId, cachedInbox))
+                           .subscribeOn(jdbcScheduler)
+                           .flatMap(upToDate -> upToDate
+                               ? serveFromCache(userId, cachedInbox)
+                               : Mono.fromCallable(() -> fetchAndAssembleInboxFromDb(userId, correlationId)).subscribeOn(jdbcScheduler));
             })
             .orElseGet(() -> {
                 log.info("Cache MISS for user {} inbox. Fetching from database.", userId);
@@ -105,6 +118,27 @@ public class UserMessageService {
             });
     }
 
+    private boolean isDueForVerification(CompactUserInbox cachedInbox) {
+        return System.currentTimeMillis() - cachedInbox.getVerifiedAtEpochMilli() >= appProperties.getSse().getInboxVerifyInterval();
+    }
+
+    /**
+     * Checks a cached inbox against the database, to catch changes its write-through updates missed:
+     * e.g. a cached inbox that was evicted and then written back whole, or a pod that died between the two writes.
+     * The cached inbox keeps its own changes as well, so any change since the last check costs one rebuild.
+     * @return Whether the cached inbox is still up to date; if so, its verification time is moved forward.
+     */
+    private boolean verifyCachedInbox(String userId, CompactUserInbox cachedInbox) {
+        long checkedAt = System.currentTimeMillis();
+        OffsetDateTime since = OffsetDateTime.ofInstant(Instant.ofEpochMilli(cachedInbox.getVerifiedAtEpochMilli()), ZoneOffset.UTC);
+        if (userBroadcastRepository.hasInboxChangesSince(userId, since)) {
+            log.info("Cached inbox of user {} has changed in the database since it was verified. Rebuilding it.", userId);
+            return false;
+        }
+        cacheService.updateUserInbox(userId, inbox -> inbox.markVerified(checkedAt));
+        return true;
+    }
+
     /**
      * Orchestrates the process of fetching data from the database, assembling the inbox,
      * and performing follow-up actions like caching and async updates.
@@ -116,6 +150,9 @@ public class UserMessageService {
         }
 
         try{
+            // Taken before the reads, so that a change committed while they run is caught by the next verification.
+            long readAt = System.currentTimeMillis();
+
             // Step 1: Encapsulate all database reads.
             InboxDataFetchResult dbData = fetchInboxDataFromDb(userId);
 
@@ -126,7 +163,7 @@ public class UserMessageService {
             );
 
             // Step 3: Perform all side-effects (caching, async processing) after assembly.
-            performPostFetchActions(userId, finalInbox, dbData.pendingMessagesToProcess());
+            performPostFetchActions(userId, finalInbox, dbData.pendingMessagesToProcess(), readAt);
             
             log.info("Assembled and cached {} total messages for user {}", finalInbox.size(), userId);
             return finalInbox;
@@ -195,7 +232,7 @@ public class UserMessageService {
     /**
      * Handles all side-effects like caching and triggering asynchronous tasks.
      */
-    private void performPostFetchActions(String userId, List<UserBroadcastResponse> finalInbox, List<UserBroadcastMessage> pendingMessagesToProcess) {
+    private void performPostFetchActions(String userId, List<UserBroadcastResponse> finalInbox, List<UserBroadcastMessage> pendingMessagesToProcess, long readAt) {
         // Cache the newly assembled inbox.
         List<UserMessageInbox> inboxToCache = finalInbox.stream()
             .map(response -> new UserMessageInbox(
@@ -206,7 +243,7 @@ public class UserMessageService {
                 response.getCreatedAt().toInstant().toEpochMilli()
             ))
             .collect(Collectors.toList());
-        cacheService.cacheUserInbox(userId, inboxToCache);
+        cacheService.cacheUserInbox(userId, CompactUserInbox.of(inboxToCache, readAt));
 
         // Identify newly delivered "ALL" messages to create records for them.
         Set<Long> targetedBroadcastIds = pendingMessagesToProcess.stream()
@@ -250,6 +287,36 @@ public class UserMessageService {
         }
     }
 
+    /**
+     * Serves the inbox from the cache, then moves its PENDING messages to DELIVERED as a rebuild from the
+     * database does. Messages the orchestrator added to a cached inbox only ever reach the user this way.
+     */
+    private Mono<List<UserBroadcastResponse>> serveFromCache(String userId, CompactUserInbox cachedInbox) {
+        List<UserMessageInbox> entries = cachedInbox.toEntries();
+        return reconstructInboxFromCache(entries)
+            .doOnSuccess(inbox -> processPendingFromCache(userId, entries));
+    }
+
+    private void processPendingFromCache(String userId, List<UserMessageInbox> entries) {
+        List<UserMessageInbox> pendingEntries = entries.stream()
+            .filter(entry -> entry.getMessageId() != null)
+            .filter(entry -> Constants.DeliveryStatus.PENDING.name().equals(entry.getDeliveryStatus()))
+            .collect(Collectors.toList());
+        if (pendingEntries.isEmpty()) {
+            return;
+        }
+        processPendingMessagesAsynchronously(pendingEntries.stream()
+            .map(entry -> UserBroadcastMessage.builder()
+                .id(entry.getMessageId())
+                .userId(userId)
+                .broadcastId(entry.getBroadcastId())
+                .build())
+            .collect(Collectors.toList()));
+        // Recorded in the cached inbox as well, so the next read neither reports nor processes them again.
+        cacheService.updateUserInbox(userId, inbox -> pendingEntries.forEach(entry ->
+            inbox.updateStatus(entry.getBroadcastId(), Constants.DeliveryStatus.DELIVERED.name(), entry.getReadStatus())));
+    }
+
     private Mono<List<UserBroadcastResponse>> reconstructInboxFromCache(List<UserMessageInbox> cachedInbox) {
         if (cachedInbox.isEmpty()) {
             return Mono.just(Collections.emptyList());
@@ -293,12 +360,13 @@ public class UserMessageService {
         final Map<Long, BroadcastMessage> resultMap = new ConcurrentHashMap<>();
         final List<Long> cacheMissIds = new ArrayList<>();
 
-        // 1. First Pass: Check the cache for each ID.
+        // 1. First Pass: Check the cache for all IDs in one bulk call.
         // Collect hits and identify all cache misses.
+        Map<Long, BroadcastContent> cached = cacheService.getBroadcastContents(broadcastIds);
         for (Long id : broadcastIds) {
-            Optional<BroadcastContent> cachedDtoOpt = cacheService.getBroadcastContent(id);
-            if (cachedDtoOpt.isPresent()) {
-                resultMap.put(id, sharedEventMapper.toBroadcastMessage(cachedDtoOpt.get()));
+            BroadcastContent cachedDto = cached.get(id);
+            if (cachedDto != null) {
+                resultMap.put(id, sharedEventMapper.toBroadcastMessage(cachedDto));
             } else {
                 cacheMissIds.add(id);
             }
@@ -310,12 +378,14 @@ public class UserMessageService {
             
             Iterable<BroadcastMessage> messagesFromDb = broadcastRepository.findAllById(cacheMissIds);
 
-            // 3. Populate Results & Prime Cache: Add DB results to the map and update the cache.
+            // 3. Populate Results & Prime Cache: Add DB results to the map and update the cache in one bulk call.
+            List<BroadcastContent> toCache = new ArrayList<>();
             for (BroadcastMessage messageFromDb : messagesFromDb) {
                 resultMap.put(messageFromDb.getId(), messageFromDb);
                 // Prime the cache so the next request for this ID is a hit.
-                cacheService.cacheBroadcastContent(sharedEventMapper.toBroadcastContentDTO(messageFromDb));
+                toCache.add(sharedEventMapper.toBroadcastContentDTO(messageFromDb));
             }
+            cacheService.cacheBroadcastContents(toCache);
         }
         return resultMap;
     }
@@ -324,7 +394,8 @@ public class UserMessageService {
     public void markMessageAsRead(String userId, Long broadcastId) {
         log.info("Attempting to mark broadcast {} as read for user {}", broadcastId, userId);
         
-        cacheService.evictUserInbox(userId);
+        // Read messages are not part of the inbox.
+        cacheService.updateUserInbox(userId, inbox -> inbox.remove(broadcastId));
         
         Optional<UserBroadcastMessage> userMessageOpt = userBroadcastRepository.findByUserIdAndBroadcastId(userId, broadcastId);
         if (userMessageOpt.isPresent()) {
@@ -0,0 +1,208 @@
+package com.example.broadcast.user.service;
+
+import com.example.broadcast.shared.config.AppProperties;
+import com.example.broadcast.shared.dto.cache.UserConnectionInfo;
+import com.example.broadcast.user.constants.CacheConstants.GeodeRegionNames;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.client.ClientCache;
+import org.apache.geode.cache.query.CqAttributesFactory;
+import org.apache.geode.cache.query.CqEvent;
+import org.apache.geode.cache.query.CqQuery;
+import org.apache.geode.cache.util.CqListenerAdapter;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An in-memory index of which pod each online user is connected to, used to route user-specific
+ * events without reading the user's connections from Geode.
+ * <p>
+ * The index follows the user-connections region through a continuous query, and is rebuilt from
+ * the region periodically to repair anything the CQ missed (e.g. while the client was reconnecting).
+ * Until the first rebuild has finished the index is not ready and callers fall back to Geode.
+ */
+@Component
+@Slf4j
+public class UserPodIndex extends CqListenerAdapter {
+
+    // Rough heap cost of one entry besides its key characters: the map node and table slot,
+    // the key String and its byte array header. The pod name strings are shared.
+    private static final int ENTRY_OVERHEAD_BYTES = 100;
+    private static final int RECONCILE_BATCH_SIZE = 1000;
+
+    private final ClientCache clientCache;
+    private final Region<String, Map<String, UserConnectionInfo>> userConnectionsRegion;
+    private final AppProperties appProperties;
+
+    private final ConcurrentHashMap<String, String> podByUser = new ConcurrentHashMap<>();
+    // One shared instance per "cluster:pod", so that 400K entries do not hold 400K copies of a few names.
+    private final ConcurrentHashMap<String, String> podNames = new ConcurrentHashMap<>();
+    private final AtomicLong keyChars = new AtomicLong();
+    // Users changed by the CQ while a rebuild is running; the rebuild's older snapshot must not overwrite them.
+    private volatile Set<String> changedDuringReconcile;
+    private volatile boolean ready;
+
+    private CqQuery userConnectionsCq;
+    private Disposable reconcileSubscription;
+
+    public UserPodIndex(ClientCache clientCache,
+                        @Qualifier("userConnectionsRegion") Region<String, Map<String, UserConnectionInfo>> userConnectionsRegion,
+                        AppProperties appProperties) {
+        this.clientCache = clientCache;
+        this.userConnectionsRegion = userConnectionsRegion;
+        this.appProperties = appProperties;
+    }
+
+    @PostConstruct
+    public void init() {
+        try {
+            CqAttributesFactory cqf = new CqAttributesFactory();
+            cqf.addCqListener(this);
+            String query = String.format("SELECT * FROM /%s", GeodeRegionNames.USER_CONNECTIONS);
+            String cqName = "UserPodIndexCQ_" + appProperties.getClusterName() + "_" + appProperties.getPodName();
+            // Not durable: after a disconnect the next rebuild catches up instead.
+            userConnectionsCq = clientCache.getQueryService().newCq(cqName, query, cqf.create(), false);
+            userConnectionsCq.execute();
+            log.info("Continuous Query registered for the user-to-pod index with query: {}", query);
+        } catch (Exception e) {
+            log.error("Failed to create the user-to-pod index CQ", e);
+            throw new RuntimeException(e);
+        }
+        reconcileSubscription = Flux.interval(Duration.ZERO, Duration.ofMillis(appProperties.getSse().getUserPodIndexReconcileInterval()), Schedulers.boundedElastic())
+                .subscribe(tick -> reconcile());
+    }
+
+    @PreDestroy
+    public void cleanup() {
+        if (reconcileSubscription != null) {
+            reconcileSubscription.dispose();
+        }
+        try {
+            if (userConnectionsCq != null && !userConnectionsCq.isClosed()) {
+                userConnectionsCq.close();
+            }
+        } catch (Exception e) {
+            log.warn("Failed to close the user-to-pod index CQ: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void onEvent(CqEvent cqEvent) {
+        String userId = (String) cqEvent.getKey();
+        Set<String> changed = changedDuringReconcile;
+        if (changed != null) {
+            changed.add(userId);
+        }
+        if (cqEvent.getQueryOperation().isDestroy()) {
+            remove(userId);
+        } else {
+            update(userId, (Map<String, UserConnectionInfo>) cqEvent.getNewValue());
+        }
+    }
+
+    @Override
+    public void onError(CqEvent cqEvent) {
+        log.error("Error received on the user-to-pod index CQ: {}", cqEvent.getThrowable().getMessage());
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * @return The "cluster:pod" the user is connected to, or null if the user is not online.
+     */
+    public String getPod(String userId) {
+        return podByUser.get(userId);
+    }
+
+    public int size() {
+        return podByUser.size();
+    }
+
+    /**
+     * @return An estimate of the heap held by the index; about 40 MB at 400K users with short ids.
+     */
+    public long getEstimatedBytes() {
+        return (long) podByUser.size() * ENTRY_OVERHEAD_BYTES + keyChars.get();
+    }
+
+    private void update(String userId, Map<String, UserConnectionInfo> connections) {
+        if (connections == null || connections.isEmpty()) {
+            remove(userId);
+            return;
+        }
+        // Route to the same connection the scatter has always picked: the first one.
+        UserConnectionInfo connectionInfo = connections.values().iterator().next();
+        String pod = connectionInfo.getClusterName() + ":" + connectionInfo.getPodName();
+        if (podByUser.put(userId, podNames.computeIfAbsent(pod, name -> name)) == null) {
+            keyChars.addAndGet(userId.length());
+        }
+    }
+
+    private void remove(String userId) {
+        if (podByUser.remove(userId) != null) {
+            keyChars.addAndGet(-userId.length());
+        }
+    }
+
+    private void reconcile() {
+        long start = System.currentTimeMillis();
+        Set<String> changed = ConcurrentHashMap.newKeySet();
+        changedDuringReconcile = changed;
+        try {
+            Map<String, Map<String, UserConnectionInfo>> snapshot = new HashMap<>();
+            List<String> batch = new ArrayList<>(RECONCILE_BATCH_SIZE);
+            for (String userId : userConnectionsRegion.keySetOnServer()) {
+                batch.add(userId);
+                if (batch.size() == RECONCILE_BATCH_SIZE) {
+                    snapshot.putAll(userConnectionsRegion.getAll(batch));
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                snapshot.putAll(userConnectionsRegion.getAll(batch));
+            }
+
+            int repaired = 0;
+            for (Map.Entry<String, Map<String, UserConnectionInfo>> entry : snapshot.entrySet()) {
+                if (changed.contains(entry.getKey())) {
+                    continue;
+                }
+                String before = podByUser.get(entry.getKey());
+                update(entry.getKey(), entry.getValue());
+                if (before == null || !before.equals(podByUser.get(entry.getKey()))) {
+                    repaired++;
+                }
+            }
+            for (String userId : podByUser.keySet()) {
+                if (!snapshot.containsKey(userId) && !changed.contains(userId)) {
+                    remove(userId);
+                    repaired++;
+                }
+            }
+            ready = true;
+            log.info("Reconciled the user-to-pod index: {} users, {} entries repaired, in {} ms.",
+                    podByUser.size(), repaired, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.warn("Failed to reconcile the user-to-pod index: {}", e.getMessage());
+        } finally {
+            changedDuringReconcile = null;
+        }
+    }
+}
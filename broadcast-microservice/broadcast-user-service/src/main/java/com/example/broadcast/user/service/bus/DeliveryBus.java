@@ -0,0 +1,26 @@
+package com.example.broadcast.user.service.bus;
+
+import com.example.broadcast.shared.dto.GeodeSsePayload;
+import com.example.broadcast.shared.dto.MessageDeliveryEvent;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Carries events from the orchestrator to the pods that hold the users' SSE connections.
+ * The implementation is chosen with {@code broadcast.delivery.bus}; each one also provides the
+ * receiving side, which hands the events to {@code SseService} on the target pod.
+ */
+public interface DeliveryBus {
+
+    /**
+     * Sends user-specific events to the pods their users are connected to.
+     * @param payloadsByPod The events, grouped by target pod ("cluster:pod") and in the order they must arrive.
+     */
+    void publishToPods(Map<String, List<GeodeSsePayload>> payloadsByPod);
+
+    /**
+     * Sends a pod-wide event (e.g. an 'ALL' broadcast or a cancellation) to every pod.
+     */
+    void publishToAll(MessageDeliveryEvent event);
+}
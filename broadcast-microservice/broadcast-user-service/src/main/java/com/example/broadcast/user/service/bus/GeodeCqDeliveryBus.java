@@ -0,0 +1,58 @@
+package com.example.broadcast.user.service.bus;
+
+import com.example.broadcast.shared.config.AppProperties;
+import com.example.broadcast.shared.dto.GeodeSseBatch;
+import com.example.broadcast.shared.dto.GeodeSsePayload;
+import com.example.broadcast.shared.dto.MessageDeliveryEvent;
+import com.example.broadcast.user.metrics.SseMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.geode.cache.Region;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Delivers through the replicated sse-user-messages and sse-group-messages regions. Each pod
+ * receives its entries through the continuous queries of {@code SseMessageCqListener}.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(prefix = "broadcast.delivery", name = "bus", havingValue = "geode", matchIfMissing = true)
+public class GeodeCqDeliveryBus implements DeliveryBus {
+
+    private final Region<String, Object> sseUserMessagesRegion;
+    private final Region<String, Object> sseGroupMessagesRegion;
+    private final SseMetrics sseMetrics;
+
+    public GeodeCqDeliveryBus(@Qualifier("sseUserMessagesRegion") Region<String, Object> sseUserMessagesRegion,
+                              @Qualifier("sseGroupMessagesRegion") Region<String, Object> sseGroupMessagesRegion,
+                              SseMetrics sseMetrics) {
+        this.sseUserMessagesRegion = sseUserMessagesRegion;
+        this.sseGroupMessagesRegion = sseGroupMessagesRegion;
+        this.sseMetrics = sseMetrics;
+    }
+
+    @Override
+    public void publishToPods(Map<String, List<GeodeSsePayload>> payloadsByPod) {
+        long start = System.nanoTime();
+        // One entry per pod, so that the pod receives the whole batch as one CQ event.
+        Map<String, Object> batches = new LinkedHashMap<>();
+        payloadsByPod.forEach((pod, payloads) -> batches.put(UUID.randomUUID().toString(), new GeodeSseBatch(pod, payloads)));
+        sseUserMessagesRegion.putAll(batches);
+        sseMetrics.deliveryPublished(AppProperties.Delivery.Bus.GEODE, System.nanoTime() - start);
+    }
+
+    @Override
+    public void publishToAll(MessageDeliveryEvent event) {
+        long start = System.nanoTime();
+        log.info("Putting generic broadcast event {} into 'sse-group-messages' region.", event.getBroadcastId());
+        // Put the raw event, as the region itself is the broadcast target.
+        sseGroupMessagesRegion.put(UUID.randomUUID().toString(), event);
+        sseMetrics.deliveryPublished(AppProperties.Delivery.Bus.GEODE, System.nanoTime() - start);
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.broadcast.user.service.bus;
+
+import com.example.broadcast.shared.config.AppProperties;
+import com.example.broadcast.shared.dto.GeodeSsePayload;
+import com.example.broadcast.shared.dto.MessageDeliveryEvent;
+import com.example.broadcast.shared.helper.KafkaListnerHelper;
+import com.example.broadcast.user.metrics.SseMetrics;
+import io.opentelemetry.api.GlobalOpenTelemetry;
+import io.opentelemetry.context.Context;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Delivers through Kafka: user-specific events go to the topic of the target pod, keyed by user,
+ * and pod-wide events go to one topic that every pod reads with its own consumer group. Trace
+ * context travels in the record headers. Receiving is done by {@link KafkaDeliveryListener}.
+ * <p>
+ * Publishing waits until Kafka has acknowledged every record, like the Geode bus waits for its put.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "broadcast.delivery", name = "bus", havingValue = "kafka")
+public class KafkaDeliveryBus implements DeliveryBus {
+
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final KafkaListnerHelper kafkaListnerHelper;
+    private final SseMetrics sseMetrics;
+
+    @Override
+    public void publishToPods(Map<String, List<GeodeSsePayload>> payloadsByPod) {
+        long start = System.nanoTime();
+        List<CompletableFuture<?>> sends = new ArrayList<>();
+        payloadsByPod.forEach((pod, payloads) -> {
+            String topic = kafkaListnerHelper.getPodDeliveryTopic(pod);
+            for (GeodeSsePayload payload : payloads) {
+                ProducerRecord<String, Object> record = new ProducerRecord<>(topic, payload.getEvent().getUserId(), payload.getEvent());
+                if (payload.getTraceContext() != null) {
+                    payload.getTraceContext().forEach((key, value) -> record.headers().add(key, value.getBytes(StandardCharsets.UTF_8)));
+                }
+                sends.add(kafkaTemplate.send(record));
+            }
+        });
+        CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new)).join();
+        sseMetrics.deliveryPublished(AppProperties.Delivery.Bus.KAFKA, System.nanoTime() - start);
+    }
+
+    @Override
+    public void publishToAll(MessageDeliveryEvent event) {
+        long start = System.nanoTime();
+        log.info("Publishing generic broadcast event {} to topic '{}'.", event.getBroadcastId(), kafkaListnerHelper.getAllPodsDeliveryTopic());
+        ProducerRecord<String, Object> record = new ProducerRecord<>(kafkaListnerHelper.getAllPodsDeliveryTopic(), String.valueOf(event.getBroadcastId()), event);
+        GlobalOpenTelemetry.getPropagators().getTextMapPropagator()
+            .inject(Context.current(), record, (carrier, key, value) -> carrier.headers().add(key, value.getBytes(StandardCharsets.UTF_8)));
+        kafkaTemplate.send(record).join();
+        sseMetrics.deliveryPublished(AppProperties.Delivery.Bus.KAFKA, System.nanoTime() - start);
+    }
+}
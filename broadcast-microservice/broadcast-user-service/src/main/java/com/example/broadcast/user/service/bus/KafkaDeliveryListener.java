@@ -0,0 +1,134 @@
+package com.example.broadcast.user.service.bus;
+
+import com.example.broadcast.shared.config.AppProperties;
+import com.example.broadcast.shared.dto.MessageDeliveryEvent;
+import com.example.broadcast.shared.util.Constants;
+import com.example.broadcast.user.metrics.SseMetrics;
+import com.example.broadcast.user.service.DeliveryDispatcher;
+import com.example.broadcast.user.service.SseService;
+import io.opentelemetry.api.GlobalOpenTelemetry;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.propagation.TextMapGetter;
+import jakarta.annotation.Nullable;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.slf4j.MDC;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * The receiving side of the {@link KafkaDeliveryBus}: reads this pod's delivery topic and the
+ * topic of pod-wide events, and hands the events to {@link SseService}.
+ * <p>
+ * Each topic is read by a single consumer and the events are delivered on the user's dispatch lane,
+ * so the events of a user keep their order.
+ * <p>
+ * A pod's consumer group is new whenever its name is, so both listeners start from the latest offset:
+ * events sent before the pod existed were meant for other pods, and replaying the retained pod-wide
+ * topic would notify reconnecting users of broadcasts they already received.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(prefix = "broadcast.delivery", name = "bus", havingValue = "kafka")
+public class KafkaDeliveryListener {
+
+    private static final TextMapGetter<Headers> headersGetter = new TextMapGetter<>() {
+        @Override
+        public Iterable<String> keys(Headers carrier) {
+            List<String> keys = new ArrayList<>();
+            carrier.forEach(header -> keys.add(header.key()));
+            return keys;
+        }
+
+        @Nullable
+        @Override
+        public String get(@Nullable Headers carrier, String key) {
+            Header header = carrier == null ? null : carrier.lastHeader(key);
+            return header == null ? null : new String(header.value(), StandardCharsets.UTF_8);
+        }
+    };
+
+    private final SseService sseService;
+    private final SseMetrics sseMetrics;
+    private final DeliveryDispatcher deliveryDispatcher;
+    private final Tracer tracer;
+
+    public KafkaDeliveryListener(SseService sseService, SseMetrics sseMetrics, DeliveryDispatcher deliveryDispatcher,
+                                 OpenTelemetry openTelemetry) {
+        this.sseService = sseService;
+        this.sseMetrics = sseMetrics;
+        this.deliveryDispatcher = deliveryDispatcher;
+        this.tracer = openTelemetry.getTracer(KafkaDeliveryListener.class.getName(), "1.0.0");
+    }
+
+    @KafkaListener(
+            topics = "#{@kafkaListnerHelper.getOwnPodDeliveryTopic()}",
+            groupId = "#{@kafkaListnerHelper.getPodDeliveryGroupId()}",
+            containerFactory = "#{@kafkaListnerHelper.getPodDeliveryListnerContainerFactory()}",
+            concurrency = "1",
+            properties = "auto.offset.reset=latest"
+    )
+    public void onPodEvent(ConsumerRecord<String, MessageDeliveryEvent> record, Acknowledgment acknowledgment) {
+        deliveryDispatcher.dispatch(record.value().getUserId(), () -> process(record, event -> {
+            log.info("Processing user-specific event from Kafka: {}", event);
+            sseService.handleMessageEvent(event);
+        }));
+        acknowledgment.acknowledge();
+    }
+
+    @KafkaListener(
+            topics = "#{@kafkaListnerHelper.getAllPodsDeliveryTopic()}",
+            groupId = "#{@kafkaListnerHelper.getPodDeliveryGroupId()}",
+            containerFactory = "#{@kafkaListnerHelper.getPodDeliveryListnerContainerFactory()}",
+            concurrency = "1",
+            properties = "auto.offset.reset=latest"
+    )
+    public void onPodWideEvent(ConsumerRecord<String, MessageDeliveryEvent> record, Acknowledgment acknowledgment) {
+        deliveryDispatcher.dispatch(String.valueOf(record.value().getBroadcastId()), () -> process(record, event -> {
+            log.info("Processing generic 'Group / Selected' broadcast event from Kafka: {}", event);
+            sseService.handleBroadcastToAllEvent(event);
+        }));
+        acknowledgment.acknowledge();
+    }
+
+    private void process(ConsumerRecord<String, MessageDeliveryEvent> record, Consumer<MessageDeliveryEvent> handler) {
+        MessageDeliveryEvent event = record.value();
+        Context parentContext = GlobalOpenTelemetry.getPropagators().getTextMapPropagator()
+            .extract(Context.current(), record.headers(), headersGetter);
+        Span span = tracer.spanBuilder("Kafka Delivery Event")
+            .setParent(parentContext)
+            .setSpanKind(SpanKind.CONSUMER)
+            .startSpan();
+
+        try (var scope = span.makeCurrent()) {
+            if (event.getCorrelationId() != null) {
+                MDC.put(Constants.CORRELATION_ID, event.getCorrelationId());
+                span.setAttribute("app.correlation_id", event.getCorrelationId());
+            }
+            try {
+                handler.accept(event);
+                sseMetrics.deliveryReceived(AppProperties.Delivery.Bus.KAFKA, event.getTimestampEpochMilli());
+            } finally {
+                MDC.remove(Constants.CORRELATION_ID);
+            }
+        } catch (Exception e) {
+            span.recordException(e);
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+}
@@ -4,35 +4,43 @@ import com.example.broadcast.shared.aspect.Monitored;
 import com.example.broadcast.shared.dto.BroadcastContent;
 import com.example.broadcast.shared.dto.cache.*;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Consumer;
 
 @Monitored("cache")
 public interface CacheService {
 
     boolean registerUserConnection(String userId, String connectionId, String podId, String clusterName);
     void unregisterUserConnection(String userId, String connectionId);
+    void unregisterUserConnections(Map<String, Set<String>> connectionIdsByUser);
     Map<String, UserConnectionInfo> getConnectionsForUser(String userId);
+    Map<String, Map<String, UserConnectionInfo>> getConnectionsForUsers(Set<String> userIds);
     boolean isUserOnline(String userId);
-    void updateHeartbeats(Set<String> connectionIds);
     Optional<ConnectionHeartbeat> getHeartbeatEntry(String connectionId);
+    Map<String, ConnectionHeartbeat> getHeartbeatEntries(Set<String> connectionIds);
 
-    Set<String> getStaleConnectionIds(long thresholdTimestamp);
     Optional<UserConnectionInfo> getConnectionDetails(String connectionId);
     void removeConnections(Set<String> connectionIds);
+    int removeConnectionsOfExpiredPods(long leaseThresholdTimestamp);
 
     long getTotalActiveUsers();
-    List<String> getOnlineUsers();
 
     Map<String, Object> getCacheStats();
 
     Optional<BroadcastContent> getBroadcastContent(Long broadcastId);
+    Map<Long, BroadcastContent> getBroadcastContents(Set<Long> broadcastIds);
     void cacheBroadcastContent(BroadcastContent broadcast);
+    void cacheBroadcastContents(Collection<BroadcastContent> broadcasts);
     void evictBroadcastContent(Long broadcastId);
 
-    Optional<List<UserMessageInbox>> getUserInbox(String userId);
-    void cacheUserInbox(String userId, List<UserMessageInbox> inbox);
-    void evictUserInbox(String userId);
+    Optional<CompactUserInbox> getUserInbox(String userId);
+    Map<String, CompactUserInbox> getUserInboxes(Set<String> userIds);
+    void cacheUserInbox(String userId, CompactUserInbox inbox);
+    void cacheUserInboxes(Map<String, CompactUserInbox> inboxesByUser);
+    boolean updateUserInbox(String userId, Consumer<CompactUserInbox> change);
+    void updateUserInboxes(Collection<String> userIds, Consumer<CompactUserInbox> change);
  }
\ No newline at end of file
@@ -1,90 +1,128 @@
 package com.example.broadcast.user.service.cache;
 
 import com.example.broadcast.shared.dto.cache.ConnectionHeartbeat;
+import com.example.broadcast.shared.dto.cache.PodStatus;
 import com.example.broadcast.shared.dto.cache.UserConnectionInfo;
-import com.example.broadcast.shared.dto.cache.UserMessageInbox;
+import com.example.broadcast.shared.dto.cache.CompactUserInbox;
 import com.example.broadcast.shared.config.AppProperties;
 import com.example.broadcast.shared.dto.BroadcastContent;
+import com.example.broadcast.shared.function.RegisterUserConnectionFunction;
+import com.example.broadcast.shared.function.RemoveExpiredPodConnectionsFunction;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 
 import org.apache.geode.cache.Region;
 import org.apache.geode.cache.client.ClientCache;
+import org.apache.geode.cache.execute.FunctionService;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
 import java.time.ZoneOffset;
 import java.time.OffsetDateTime;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
 @Slf4j
 public class GeodeCacheService implements CacheService {
 
+    // Keys per getAll/removeAll request, so that one bulk call does not turn into a single huge message.
+    private static final int BULK_CHUNK_SIZE = 1000;
+
     private final ClientCache clientCache;
     private final Region<String, Map<String, UserConnectionInfo>> userConnectionsRegion;
     private final Region<String, ConnectionHeartbeat> connectionHeartbeatRegion;
-    private final Region<String, List<UserMessageInbox>> userMessagesInboxRegion;
+    private final Region<String, CompactUserInbox> userMessagesInboxRegion;
     private final Region<Long, BroadcastContent> broadcastContentRegion;
+    private final Region<String, PodStatus> podStatusRegion;
     private final AppProperties appProperties;
+    private final Counter broadcastContentHits;
+    private final Counter broadcastContentMisses;
+    private final Timer registrationLatency;
+    private final DistributionSummary registrationAttempts;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Counter> roundTrips = new ConcurrentHashMap<>();
 
     public GeodeCacheService(ClientCache clientCache,
                              @Qualifier("userConnectionsRegion") Region<String, Map<String, UserConnectionInfo>> userConnectionsRegion,
                              @Qualifier("connectionHeartbeatRegion") Region<String, ConnectionHeartbeat> connectionHeartbeatRegion,
-                             @Qualifier("userMessagesInboxRegion") Region<String, List<UserMessageInbox>> userMessagesInboxRegion,
+                             @Qualifier("userMessagesInboxRegion") Region<String, CompactUserInbox> userMessagesInboxRegion,
                              @Qualifier("broadcastContentRegion") Region<Long, BroadcastContent> broadcastContentRegion,
-                             AppProperties appProperties
+                             @Qualifier("podStatusRegion") Region<String, PodStatus> podStatusRegion,
+                             AppProperties appProperties,
+                             MeterRegistry meterRegistry
     ) {
         this.clientCache = clientCache;
         this.userConnectionsRegion = userConnectionsRegion;
         this.connectionHeartbeatRegion = connectionHeartbeatRegion;
         this.userMessagesInboxRegion = userMessagesInboxRegion;
         this.broadcastContentRegion = broadcastContentRegion;
+        this.podStatusRegion = podStatusRegion;
         this.appProperties = appProperties;
+        this.meterRegistry = meterRegistry;
+        this.broadcastContentHits = Counter.builder("broadcast.cache.near")
+                .description("Lookups in a local near cache, by whether they were served locally or went to the servers.")
+                .tag("region", broadcastContentRegion.getName())
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.broadcastContentMisses = Counter.builder("broadcast.cache.near")
+                .description("Lookups in a local near cache, by whether they were served locally or went to the servers.")
+                .tag("region", broadcastContentRegion.getName())
+                .tag("result", "miss")
+                .register(meterRegistry);
+        this.registrationLatency = Timer.builder("broadcast.cache.connection.register")
+                .description("Time to register a connection in Geode, limit check and heartbeat entry included.")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.registrationAttempts = DistributionSummary.builder("broadcast.cache.connection.register.attempts")
+                .description("Compare-and-set attempts a connection registration took; above 1 means it met a concurrent change.")
+                .register(meterRegistry);
+        Gauge.builder("broadcast.cache.near.hit.ratio", this, GeodeCacheService::broadcastContentHitRatio)
+                .description("Share of near cache lookups served locally, over the lifetime of the pod.")
+                .tag("region", broadcastContentRegion.getName())
+                .register(meterRegistry);
+        Gauge.builder("broadcast.cache.near.size", broadcastContentRegion, region -> region.keySet().size())
+                .description("Entries held in a local near cache.")
+                .tag("region", broadcastContentRegion.getName())
+                .register(meterRegistry);
     }
 
+    /**
+     * Registers the connection with one call to {@link RegisterUserConnectionFunction} on the member that owns
+     * the user's entry, which checks the limit, adds the connection and creates its heartbeat entry.
+     */
     @Override
+    @SuppressWarnings("unchecked")
     public boolean registerUserConnection(String userId, String connectionId, String podName, String clusterName) {
-        int maxRetries = 5; // Prevent an infinite loop in high-contention scenarios
-        for (int i = 0; i < maxRetries; i++) {
-            
-            // 1. GET: Read the current value from Geode.
-            Map<String, UserConnectionInfo> oldConnections = userConnectionsRegion.get(userId);
-            
-            int currentSize = (oldConnections == null) ? 0 : oldConnections.size();
-            if (currentSize >= appProperties.getSse().getMaxConnectionsPerUser()) {
-                log.warn("Connection limit reached for user '{}'. Registration failed.", userId);
-                return false; // Limit reached
-            }
-
-            // 2. MODIFY: Create the new connection and add it to a new map.
-            long nowEpochMilli = OffsetDateTime.now(ZoneOffset.UTC).toInstant().toEpochMilli();
-            UserConnectionInfo newConnectionInfo = new UserConnectionInfo(userId, connectionId, podName, clusterName, nowEpochMilli, nowEpochMilli);
-            Map<String, UserConnectionInfo> newConnections = (oldConnections == null) ? new HashMap<>() : new HashMap<>(oldConnections);
-            newConnections.put(connectionId, newConnectionInfo);
-
-            // 3. ATOMIC REPLACE (Compare-and-Set)
-            boolean success;
-            if (oldConnections == null) {
-                success = (userConnectionsRegion.putIfAbsent(userId, newConnections) == null);
-            } else {
-                success = userConnectionsRegion.replace(userId, oldConnections, newConnections);
-            }
+        long nowEpochMilli = OffsetDateTime.now(ZoneOffset.UTC).toInstant().toEpochMilli();
+        UserConnectionInfo newConnectionInfo = new UserConnectionInfo(userId, connectionId, podName, clusterName, nowEpochMilli, nowEpochMilli);
+        long startNanos = System.nanoTime();
+        try {
+            List<Object> results = (List<Object>) FunctionService.onRegion(userConnectionsRegion)
+                    .withFilter(Set.of(userId))
+                    .setArguments(new Object[]{newConnectionInfo, appProperties.getSse().getMaxConnectionsPerUser()})
+                    .execute(RegisterUserConnectionFunction.ID)
+                    .getResult();
+            roundTrip(userConnectionsRegion, "function");
+            RegisterUserConnectionFunction.Result result = (RegisterUserConnectionFunction.Result) results.get(0);
+            registrationAttempts.record(result.attempts());
 
-            if (success) {
-                log.info("Successfully registered connection {} for user '{}'", connectionId, userId);
-                ConnectionHeartbeat metadata = new ConnectionHeartbeat(userId, nowEpochMilli);
-                connectionHeartbeatRegion.put(connectionId, metadata);
-                return true; // Success! Exit the method.
+            if (!result.registered()) {
+                log.warn("Connection limit reached for user '{}'. Registration failed.", userId);
+                return false;
             }
-            
-            // If success is false, another thread updated the data. Loop to retry.
-            log.warn("Optimistic locking conflict for user '{}'. Retrying... (attempt {}/{})", userId, i + 1, maxRetries);
+            log.info("Successfully registered connection {} for user '{}'", connectionId, userId);
+            return true;
+        } finally {
+            registrationLatency.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
         }
-        
-        // If the loop finishes, all retries have failed.
-        log.error("Failed to register connection for user {} after {} attempts.", userId, maxRetries);
-        return false;
     }
 
     @Override
@@ -101,8 +139,10 @@ public class GeodeCacheService implements CacheService {
                 updatedConnections.remove(connectionId);
                 return updatedConnections.isEmpty() ? null : updatedConnections;
             });
+            roundTrip(userConnectionsRegion, "compute");
 
             connectionHeartbeatRegion.remove(connectionId);
+            roundTrip(connectionHeartbeatRegion, "remove");
             log.info("Synchronously completed unregister for connection {}", connectionId);
 
         } catch (Exception e) {
@@ -110,52 +150,68 @@ public class GeodeCacheService implements CacheService {
         }
     }
     
+    /**
+     * Unregisters many connections with a fixed number of bulk operations instead of one compute per connection.
+     * The user entries are read and rewritten without a compare-and-set, so this is meant for a draining pod,
+     * whose users are not expected to register new connections at the same moment.
+     */
     @Override
-    public boolean isUserOnline(String userId) {
-        return userConnectionsRegion.containsKey(userId);
-    }
+    public void unregisterUserConnections(Map<String, Set<String>> connectionIdsByUser) {
+        log.info("Bulk unregistering connections of {} users", connectionIdsByUser.size());
+        try {
+            Map<String, Map<String, UserConnectionInfo>> existing = getAllChunked(userConnectionsRegion, connectionIdsByUser.keySet());
+            Map<String, Map<String, UserConnectionInfo>> updated = new HashMap<>();
+            List<String> emptied = new ArrayList<>();
+            Set<String> allConnectionIds = new HashSet<>();
 
-    @Override
-    public void updateHeartbeats(Set<String> connectionIds) {
-        long now = OffsetDateTime.now(ZoneOffset.UTC).toInstant().toEpochMilli();
-        Map<String, ConnectionHeartbeat> updates = new HashMap<>();
-        for (String connId : connectionIds) {
-            ConnectionHeartbeat currentMeta = connectionHeartbeatRegion.get(connId);
-            if (currentMeta != null) {
-                // Create a new object with the updated timestamp
-                updates.put(connId, currentMeta.withLastHeartbeatTimestamp(now));
+            connectionIdsByUser.forEach((userId, connectionIds) -> {
+                allConnectionIds.addAll(connectionIds);
+                Map<String, UserConnectionInfo> connections = existing.get(userId);
+                if (connections == null) {
+                    return;
+                }
+                Map<String, UserConnectionInfo> remaining = new HashMap<>(connections);
+                remaining.keySet().removeAll(connectionIds);
+                if (remaining.isEmpty()) {
+                    emptied.add(userId);
+                } else {
+                    updated.put(userId, remaining);
+                }
+            });
+
+            if (!updated.isEmpty()) {
+                userConnectionsRegion.putAll(updated);
+                roundTrip(userConnectionsRegion, "putAll");
             }
-        }
-        if (!updates.isEmpty()) {
-            connectionHeartbeatRegion.putAll(updates);
+            removeAllChunked(userConnectionsRegion, emptied);
+            removeAllChunked(connectionHeartbeatRegion, allConnectionIds);
+            log.info("Bulk unregistered {} connections", allConnectionIds.size());
+        } catch (Exception e) {
+            log.error("Error during bulk unregister of {} users: {}", connectionIdsByUser.size(), e.getMessage());
         }
     }
 
+    @Override
+    public boolean isUserOnline(String userId) {
+        return userConnectionsRegion.containsKey(userId);
+    }
+
     @Override
     public Optional<ConnectionHeartbeat> getHeartbeatEntry(String connectionId) {
+        roundTrip(connectionHeartbeatRegion, "get");
         return Optional.ofNullable(connectionHeartbeatRegion.get(connectionId));
     }
 
     @Override
-    public Set<String> getStaleConnectionIds(long thresholdTimestamp) {
-        // 1. Get the complete list of keys directly from the server. This is reliable.
-        Set<String> allKeysOnServer = connectionHeartbeatRegion.keySetOnServer();
-        
-        // 2. Stream over the definitive key set.
-        return allKeysOnServer.stream()
-                .filter(key -> {
-                    // 3. For each key, get its value.
-                    ConnectionHeartbeat heartbeat = connectionHeartbeatRegion.get(key);
-                    // 4. Perform the stale check on the value.
-                    return heartbeat != null && heartbeat.getLastHeartbeatTimestamp() < thresholdTimestamp;
-                })
-                .collect(Collectors.toSet());
+    public Map<String, ConnectionHeartbeat> getHeartbeatEntries(Set<String> connectionIds) {
+        return getAllChunked(connectionHeartbeatRegion, connectionIds);
     }
 
     @Override
     public Optional<UserConnectionInfo> getConnectionDetails(String connectionId) {
         // Step 1: Find the userId from the heartbeat region (reverse lookup)
         ConnectionHeartbeat heartbeat = connectionHeartbeatRegion.get(connectionId);
+        roundTrip(connectionHeartbeatRegion, "get");
         if (heartbeat == null) {
             log.debug("No heartbeat found for connectionId: {}, cannot get connection details.", connectionId);
             return Optional.empty();
@@ -165,6 +221,7 @@ public class GeodeCacheService implements CacheService {
 
         // Step 2: Get the map of all connections for that user from the userConnectionsRegion
         Map<String, UserConnectionInfo> userConnections = userConnectionsRegion.get(userId);
+        roundTrip(userConnectionsRegion, "get");
         if (userConnections == null || userConnections.isEmpty()) {
             log.warn("Heartbeat exists for connectionId {} (user {}), but no connection map found in userConnectionsRegion.", connectionId, userId);
             return Optional.empty();
@@ -174,49 +231,163 @@ public class GeodeCacheService implements CacheService {
         return Optional.ofNullable(userConnections.get(connectionId));
     }
 
+    /**
+     * Removes connections whose owners are not known to the caller. The owners are read in bulk and
+     * each user's entry is rewritten once.
+     */
     @Override
     public void removeConnections(Set<String> connectionIds) {
-        connectionIds.forEach(connId -> {
-            // NEW LOGIC: Get userId from the metadata object
-            ConnectionHeartbeat metadata = connectionHeartbeatRegion.get(connId);
-            if (metadata != null) {
-                unregisterUserConnection(metadata.getUserId(), connId);
+        Map<String, Set<String>> connectionIdsByUser = new HashMap<>();
+        getHeartbeatEntries(connectionIds).forEach((connId, metadata) ->
+                connectionIdsByUser.computeIfAbsent(metadata.getUserId(), userId -> new HashSet<>()).add(connId));
+        removeUserConnections(connectionIdsByUser);
+        removeAllChunked(connectionHeartbeatRegion, connectionIds);
+    }
+
+    /**
+     * Removes the connections of every pod whose lease has expired, i.e. whose pod-status entry was last renewed
+     * before the threshold or is gone. The sweep runs on the servers as {@link RemoveExpiredPodConnectionsFunction},
+     * so it costs one round trip however many users and connections the cluster holds.
+     * @return The number of connections removed.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public int removeConnectionsOfExpiredPods(long leaseThresholdTimestamp) {
+        List<Object> results = (List<Object>) FunctionService.onRegion(userConnectionsRegion)
+                .setArguments(leaseThresholdTimestamp)
+                .execute(RemoveExpiredPodConnectionsFunction.ID)
+                .getResult();
+        roundTrip(userConnectionsRegion, "function");
+        int removed = 0;
+        for (Object result : results) {
+            if (result instanceof Integer count) {
+                removed += count;
+            } else if (result instanceof Throwable t) {
+                throw new IllegalStateException("Stale connection sweep failed on a server", t);
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Rewrites each user's entry once, with a compute rather than a bulk put, because the user may be
+     * registering a new connection on another pod at the same moment.
+     */
+    private void removeUserConnections(Map<String, Set<String>> connectionIdsByUser) {
+        connectionIdsByUser.forEach((userId, userConnectionIds) -> {
+            log.debug("Removing connections {} of user {}", userConnectionIds, userId);
+            try {
+                userConnectionsRegion.compute(userId, (key, existingConnections) -> {
+                    if (existingConnections == null) {
+                        return null;
+                    }
+                    Map<String, UserConnectionInfo> updatedConnections = new HashMap<>(existingConnections);
+                    updatedConnections.keySet().removeAll(userConnectionIds);
+                    return updatedConnections.isEmpty() ? null : updatedConnections;
+                });
+                roundTrip(userConnectionsRegion, "compute");
+            } catch (Exception e) {
+                log.error("Error removing connections {} of user {}: {}", userConnectionIds, userId, e.getMessage());
             }
         });
     }
 
     @Override
-    public Optional<List<UserMessageInbox>> getUserInbox(String userId) {
+    public Optional<CompactUserInbox> getUserInbox(String userId) {
+        roundTrip(userMessagesInboxRegion, "get");
         return Optional.ofNullable(userMessagesInboxRegion.get(userId));
     }
 
     @Override
-    public void cacheUserInbox(String userId, List<UserMessageInbox> inbox) {
+    public Map<String, CompactUserInbox> getUserInboxes(Set<String> userIds) {
+        return getAllChunked(userMessagesInboxRegion, userIds);
+    }
+
+    @Override
+    public void cacheUserInbox(String userId, CompactUserInbox inbox) {
         log.debug("Caching inbox for user: {}. Size: {}", userId, inbox.size());
         userMessagesInboxRegion.put(userId, inbox);
+        roundTrip(userMessagesInboxRegion, "put");
+    }
+
+    @Override
+    public void cacheUserInboxes(Map<String, CompactUserInbox> inboxesByUser) {
+        if (inboxesByUser.isEmpty()) {
+            return;
+        }
+        log.debug("Caching inboxes for {} users", inboxesByUser.size());
+        userMessagesInboxRegion.putAll(inboxesByUser);
+        roundTrip(userMessagesInboxRegion, "putAll");
+    }
+
+    /**
+     * Applies a change to the user's cached inbox. Putting it back sends only the recorded changes, as a
+     * {@link org.apache.geode.Delta}, which the servers apply to their current copy.
+     * @return Whether the user had a cached inbox; if not, nothing is written and the next read rebuilds it.
+     */
+    @Override
+    public boolean updateUserInbox(String userId, Consumer<CompactUserInbox> change) {
+        CompactUserInbox inbox = userMessagesInboxRegion.get(userId);
+        roundTrip(userMessagesInboxRegion, "get");
+        if (inbox == null) {
+            return false;
+        }
+        change.accept(inbox);
+        if (inbox.hasDelta()) {
+            userMessagesInboxRegion.put(userId, inbox);
+            roundTrip(userMessagesInboxRegion, "put");
+        }
+        return true;
     }
 
+    /**
+     * Applies the same change to the cached inboxes of many users: one bulk read per chunk, then a put per
+     * changed inbox. Users without a cached inbox are skipped. The puts are not batched into a putAll,
+     * because a bulk write ships whole inboxes and would overwrite changes other pods made in between;
+     * a put ships only the delta, which the servers apply to their current copy.
+     */
     @Override
-    public void evictUserInbox(String userId) {
-        log.info("Evicting inbox cache for user: {}", userId);
-        userMessagesInboxRegion.remove(userId);
+    public void updateUserInboxes(Collection<String> userIds, Consumer<CompactUserInbox> change) {
+        Map<String, CompactUserInbox> inboxes = getAllChunked(userMessagesInboxRegion, userIds);
+        inboxes.forEach((userId, inbox) -> {
+            change.accept(inbox);
+            if (inbox.hasDelta()) {
+                userMessagesInboxRegion.put(userId, inbox);
+                roundTrip(userMessagesInboxRegion, "put");
+            }
+        });
     }
 
     @Override
     public Map<String, UserConnectionInfo> getConnectionsForUser(String userId) {
         // This method now correctly returns all connections for the user
         Map<String, UserConnectionInfo> connections = userConnectionsRegion.get(userId);
+        roundTrip(userConnectionsRegion, "get");
         return connections != null ? connections : Collections.emptyMap();
     }
-    
+
     @Override
-    public long getTotalActiveUsers() {
-        return userConnectionsRegion.size(); // Use userConnectionsRegion for total count
+    public Map<String, Map<String, UserConnectionInfo>> getConnectionsForUsers(Set<String> userIds) {
+        // One round trip per chunk of users; offline users come back with a null value and are left out.
+        Map<String, Map<String, UserConnectionInfo>> connections = getAllChunked(userConnectionsRegion, userIds);
+        connections.values().removeIf(Map::isEmpty);
+        return connections;
     }
-
+    
+    /**
+     * Sums the user counts the pods publish with their leases, so the cost grows with the number of pods,
+     * not of users. Pods whose lease has expired are left out. A user connected to more than one pod is
+     * counted once per pod, at most max-connections-per-user times.
+     */
     @Override
-    public List<String> getOnlineUsers() {
-        return userConnectionsRegion.keySetOnServer().stream().toList();
+    public long getTotalActiveUsers() {
+        long freshAfter = System.currentTimeMillis() - appProperties.getSse().getClientTimeoutThreshold();
+        Set<String> podKeys = podStatusRegion.keySetOnServer();
+        roundTrip(podStatusRegion, "keySetOnServer");
+        return getAllChunked(podStatusRegion, podKeys).values().stream()
+                .filter(status -> status.getUpdatedAt() >= freshAfter)
+                .mapToLong(PodStatus::getUserCount)
+                .sum();
     }
 
     @Override
@@ -226,21 +397,122 @@ public class GeodeCacheService implements CacheService {
         stats.put("totalTrackedConnections", connectionHeartbeatRegion.size());
         stats.put("regionSizes", clientCache.rootRegions().stream()
                 .collect(Collectors.toMap(Region::getName, Region::size)));
+        stats.put("broadcastContentNearCacheHitRatio", broadcastContentHitRatio());
         return stats;
     }
 
+    private double broadcastContentHitRatio() {
+        double lookups = broadcastContentHits.count() + broadcastContentMisses.count();
+        return lookups > 0 ? broadcastContentHits.count() / lookups : 0.0;
+    }
+
     @Override
     public Optional<BroadcastContent> getBroadcastContent(Long broadcastId) {
+        // On a client region, containsKey only looks at the local near cache.
+        if (broadcastContentRegion.containsKey(broadcastId)) {
+            broadcastContentHits.increment();
+        } else {
+            broadcastContentMisses.increment();
+            roundTrip(broadcastContentRegion, "get");
+        }
         return Optional.ofNullable(broadcastContentRegion.get(broadcastId));
     }
 
+    @Override
+    public Map<Long, BroadcastContent> getBroadcastContents(Set<Long> broadcastIds) {
+        // Serve what the near cache holds and fetch only the rest from the servers.
+        Map<Long, BroadcastContent> contents = new HashMap<>();
+        Set<Long> missing = new HashSet<>();
+        for (Long broadcastId : broadcastIds) {
+            BroadcastContent local = broadcastContentRegion.containsKey(broadcastId) ? broadcastContentRegion.get(broadcastId) : null;
+            if (local != null) {
+                contents.put(broadcastId, local);
+            } else {
+                missing.add(broadcastId);
+            }
+        }
+        broadcastContentHits.increment(contents.size());
+        broadcastContentMisses.increment(missing.size());
+        contents.putAll(getAllChunked(broadcastContentRegion, missing));
+        return contents;
+    }
+
     @Override
     public void cacheBroadcastContent(BroadcastContent broadcast) {
-        if (broadcast != null) broadcastContentRegion.put(broadcast.getId(), broadcast);
+        if (broadcast != null) {
+            broadcastContentRegion.put(broadcast.getId(), broadcast);
+            roundTrip(broadcastContentRegion, "put");
+        }
+    }
+
+    @Override
+    public void cacheBroadcastContents(Collection<BroadcastContent> broadcasts) {
+        Map<Long, BroadcastContent> byId = new HashMap<>();
+        broadcasts.forEach(broadcast -> byId.put(broadcast.getId(), broadcast));
+        if (!byId.isEmpty()) {
+            broadcastContentRegion.putAll(byId);
+            roundTrip(broadcastContentRegion, "putAll");
+        }
     }
 
     @Override
     public void evictBroadcastContent(Long broadcastId) {
-        if (broadcastId != null) broadcastContentRegion.remove(broadcastId);
+        if (broadcastId != null) {
+            broadcastContentRegion.remove(broadcastId);
+            roundTrip(broadcastContentRegion, "remove");
+        }
+    }
+
+    /**
+     * Reads the keys in chunks of {@link #BULK_CHUNK_SIZE}, one round trip per chunk.
+     * @return The entries that exist; keys without a value are left out.
+     */
+    private <K, V> Map<K, V> getAllChunked(Region<K, V> region, Collection<K> keys) {
+        Map<K, V> values = new HashMap<>();
+        for (List<K> chunk : chunks(keys)) {
+            region.getAll(chunk).forEach((key, value) -> {
+                if (value != null) {
+                    values.put(key, value);
+                }
+            });
+            roundTrip(region, "getAll");
+        }
+        return values;
+    }
+
+    private <K> void removeAllChunked(Region<K, ?> region, Collection<K> keys) {
+        for (List<K> chunk : chunks(keys)) {
+            region.removeAll(chunk);
+            roundTrip(region, "removeAll");
+        }
+    }
+
+    private static <K> List<List<K>> chunks(Collection<K> keys) {
+        List<List<K>> chunks = new ArrayList<>();
+        List<K> chunk = new ArrayList<>(Math.min(keys.size(), BULK_CHUNK_SIZE));
+        for (K key : keys) {
+            chunk.add(key);
+            if (chunk.size() == BULK_CHUNK_SIZE) {
+                chunks.add(chunk);
+                chunk = new ArrayList<>(BULK_CHUNK_SIZE);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
+    /**
+     * Counts one request sent to the servers, by region and operation, so that the hot paths can be
+     * checked for per-key loops that should be bulk calls.
+     */
+    private void roundTrip(Region<?, ?> region, String operation) {
+        roundTrips.computeIfAbsent(region.getName() + ":" + operation, key -> Counter.builder("broadcast.cache.round.trips")
+                .description("Requests sent to the Geode servers, by region and operation.")
+                .tag("region", region.getName())
+                .tag("operation", operation)
+                .register(meterRegistry))
+            .increment();
     }
 }
\ No newline at end of file
@@ -0,0 +1,54 @@
+package com.example.broadcast.user.service.sse;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A hashed timing wheel that spreads connection heartbeats evenly over the heartbeat interval.
+ * <p>
+ * Each connection is placed in one of {@code slotCount} slots by the hash of its id. The wheel is
+ * advanced once every {@code interval / slotCount}, and only the connections in the current slot
+ * are due, so each connection is still visited once per interval but the pod never touches all
+ * of them at the same instant.
+ */
+public final class HeartbeatWheel {
+
+    private final Set<SseConnection>[] slots;
+
+    // Only advanced from the single heartbeat timer.
+    private int cursor;
+
+    @SuppressWarnings("unchecked")
+    public HeartbeatWheel(int slotCount) {
+        this.slots = new Set[Math.max(1, slotCount)];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = ConcurrentHashMap.newKeySet();
+        }
+    }
+
+    public void add(SseConnection connection) {
+        slotOf(connection).add(connection);
+    }
+
+    public void remove(SseConnection connection) {
+        slotOf(connection).remove(connection);
+    }
+
+    /**
+     * Moves the wheel on by one slot.
+     * @return The live set of connections due in the slot just reached.
+     */
+    public Set<SseConnection> advance() {
+        Set<SseConnection> due = slots[cursor];
+        cursor = (cursor + 1) % slots.length;
+        return due;
+    }
+
+    public int slotCount() {
+        return slots.length;
+    }
+
+    private Set<SseConnection> slotOf(SseConnection connection) {
+        return slots[Math.floorMod(connection.getConnectionId().hashCode(), slots.length)];
+    }
+}
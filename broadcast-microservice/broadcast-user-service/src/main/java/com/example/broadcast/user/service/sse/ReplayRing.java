@@ -0,0 +1,108 @@
+package com.example.broadcast.user.service.sse;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The most recent events delivered to one user on this pod, kept so that a reconnecting client can
+ * be sent only what it missed. The ring is bounded by an event count and a byte budget, but always
+ * keeps the event appended last. The pod-wide replay budget is enforced by {@link ReplayStore}.
+ * <p>
+ * The ring's monitor also serializes appends with the replay done on reconnect, so a live event
+ * is never both replayed and delivered to the new connection.
+ */
+public final class ReplayRing {
+
+    private final int capacity;
+    private final long maxBytes;
+    private final AtomicLong podBytes;
+
+    // Guarded by 'this'
+    private final ArrayDeque<SseFrame> frames = new ArrayDeque<>();
+    private long bytes;
+    private int attachedConnections;
+    private long detachedAtNanos;
+    // Read without the monitor to pick the least recently used rings
+    private volatile long appendedAtNanos = System.nanoTime();
+
+    ReplayRing(int capacity, long maxBytes, AtomicLong podBytes) {
+        this.capacity = capacity;
+        this.maxBytes = maxBytes;
+        this.podBytes = podBytes;
+    }
+
+    /**
+     * Remembers a delivered event. Frames without an event id cannot be resumed from and are ignored.
+     */
+    public synchronized void append(SseFrame frame) {
+        if (frame.getEventId() == null) {
+            return;
+        }
+        frames.addLast(frame);
+        bytes += frame.size();
+        if (frame.retainForReplay()) {
+            podBytes.addAndGet(frame.size());
+        }
+        appendedAtNanos = System.nanoTime();
+        while (frames.size() > 1 && (frames.size() > capacity || bytes > maxBytes)) {
+            release(frames.pollFirst());
+        }
+    }
+
+    /**
+     * @return The events delivered after the given one, oldest first, or null if the event is no longer
+     *         in the ring and the client has to resynchronize from its inbox.
+     */
+    public synchronized List<SseFrame> framesAfter(String lastEventId) {
+        int index = frames.size();
+        Iterator<SseFrame> newestFirst = frames.descendingIterator();
+        while (newestFirst.hasNext()) {
+            index--;
+            if (lastEventId.equals(newestFirst.next().getEventId())) {
+                List<SseFrame> missed = new ArrayList<>(frames.size() - index - 1);
+                Iterator<SseFrame> it = frames.iterator();
+                for (int i = 0; it.hasNext(); i++) {
+                    SseFrame frame = it.next();
+                    if (i > index) {
+                        missed.add(frame);
+                    }
+                }
+                return missed;
+            }
+        }
+        return null;
+    }
+
+    synchronized void attach() {
+        attachedConnections++;
+    }
+
+    synchronized void detach() {
+        if (attachedConnections > 0 && --attachedConnections == 0) {
+            detachedAtNanos = System.nanoTime();
+        }
+    }
+
+    synchronized boolean isExpired(long nowNanos, long retentionNanos) {
+        return attachedConnections == 0 && nowNanos - detachedAtNanos >= retentionNanos;
+    }
+
+    long getAppendedAtNanos() {
+        return appendedAtNanos;
+    }
+
+    synchronized void clear() {
+        frames.forEach(this::release);
+        frames.clear();
+    }
+
+    private void release(SseFrame frame) {
+        bytes -= frame.size();
+        if (frame.releaseFromReplay()) {
+            podBytes.addAndGet(-frame.size());
+        }
+    }
+}
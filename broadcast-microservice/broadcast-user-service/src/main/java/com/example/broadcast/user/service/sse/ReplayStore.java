@@ -0,0 +1,100 @@
+package com.example.broadcast.user.service.sse;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The replay rings of the users connected to this pod.
+ * A ring is created when a user's first connection opens and kept for a retention period after the
+ * last one closes, so that a client reconnecting after a network blip can still be resumed.
+ * <p>
+ * The rings share a pod-wide byte budget, in which a frame held by several rings, such as a broadcast
+ * to all users, counts once. When it is exceeded, the rings appended to least recently are emptied first,
+ * so idle users give up their events before active ones.
+ */
+public final class ReplayStore {
+
+    private final ConcurrentHashMap<String, ReplayRing> rings = new ConcurrentHashMap<>();
+    private final AtomicLong podBytes = new AtomicLong();
+    private final int capacityPerUser;
+    private final long maxBytesPerUser;
+    private final long maxPodBytes;
+    private final long retentionNanos;
+
+    public ReplayStore(int capacityPerUser, long maxBytesPerUser, long maxPodBytes, long retentionNanos) {
+        this.capacityPerUser = capacityPerUser;
+        this.maxBytesPerUser = maxBytesPerUser;
+        this.maxPodBytes = maxPodBytes;
+        this.retentionNanos = retentionNanos;
+    }
+
+    /**
+     * Returns the user's ring, creating it if needed, and counts one more open connection against it.
+     */
+    public ReplayRing attach(String userId) {
+        return rings.compute(userId, (key, ring) -> {
+            ReplayRing attached = ring != null ? ring : new ReplayRing(capacityPerUser, maxBytesPerUser, podBytes);
+            attached.attach();
+            return attached;
+        });
+    }
+
+    public void detach(String userId) {
+        ReplayRing ring = rings.get(userId);
+        if (ring != null) {
+            ring.detach();
+        }
+    }
+
+    public ReplayRing get(String userId) {
+        return rings.get(userId);
+    }
+
+    /**
+     * Empties the least recently used rings until the pod is back within its budget. The ring just appended
+     * to is never emptied, so the event it was given can always be resumed from.
+     * Must not be called while holding a ring's monitor, as emptying another ring takes that ring's.
+     */
+    public void enforcePodBudget(ReplayRing appendedTo) {
+        if (podBytes.get() <= maxPodBytes) {
+            return;
+        }
+        List<ReplayRing> leastRecentlyUsed = new ArrayList<>(rings.values());
+        leastRecentlyUsed.sort(Comparator.comparingLong(ReplayRing::getAppendedAtNanos));
+        for (ReplayRing ring : leastRecentlyUsed) {
+            if (podBytes.get() <= maxPodBytes) {
+                return;
+            }
+            if (ring != appendedTo) {
+                ring.clear();
+            }
+        }
+    }
+
+    /**
+     * Drops the rings of users that have had no connection on this pod for longer than the retention period.
+     */
+    public void evictExpired() {
+        long now = System.nanoTime();
+        for (String userId : rings.keySet()) {
+            rings.computeIfPresent(userId, (key, ring) -> {
+                if (ring.isExpired(now, retentionNanos)) {
+                    ring.clear();
+                    return null;
+                }
+                return ring;
+            });
+        }
+    }
+
+    public int size() {
+        return rings.size();
+    }
+
+    public long getBufferedBytes() {
+        return podBytes.get();
+    }
+}
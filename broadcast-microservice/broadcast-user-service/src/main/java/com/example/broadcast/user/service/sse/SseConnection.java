@@ -0,0 +1,341 @@
+package com.example.broadcast.user.service.sse;
+
+import com.example.broadcast.shared.config.AppProperties.Sse.OverflowPolicy;
+import com.example.broadcast.shared.util.Constants.SseEventType;
+import lombok.Getter;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * One SSE connection on this pod and its bounded send queue.
+ * <p>
+ * Frames are queued here and only handed to the HTTP response when it signals demand, so a
+ * slow or stalled browser can never hold more than {@code capacity} frames on the heap.
+ * When the queue is full the configured {@link OverflowPolicy} decides what to give up.
+ * Queued bytes are also added to a pod-wide counter shared by all connections.
+ * <p>
+ * With a batching window configured, the first frame of a burst is held for up to that window so
+ * that the frames following it go out in the same write, up to {@code maxBatchSize} frames.
+ * Urgent frames end the window at once and are written together with whatever is queued before them.
+ */
+public final class SseConnection {
+
+    /**
+     * The outcome of offering a frame to the connection.
+     */
+    public enum OfferResult {
+        QUEUED,
+        /** The frame was queued after the oldest queued frame was dropped. */
+        DROPPED_OLDEST,
+        /** The frame was a heartbeat and one was already pending, or queued heartbeats were dropped to make room. */
+        COALESCED,
+        /** The queue overflowed; the connection was closed after a resume hint. */
+        DISCONNECTED,
+        /** The connection is already closed. */
+        CLOSED
+    }
+
+    @Getter
+    private final String userId;
+    @Getter
+    private final String connectionId;
+    private final int capacity;
+    private final OverflowPolicy overflowPolicy;
+    private final AtomicLong podBufferedBytes;
+    private final Function<String, SseFrame> resumeHintFactory;
+    private final long batchWindowNanos;
+    private final int maxBatchSize;
+
+    // Guarded by 'this'
+    private final ArrayDeque<SseFrame> queue = new ArrayDeque<>();
+    private long queuedBytes;
+    private int queuedHeartbeats;
+    private boolean completing;
+    private String lastDeliveredEventId;
+    private int consecutiveFailedOffers;
+    private boolean holding;
+    private Disposable flushTimer;
+
+    private final AtomicInteger wip = new AtomicInteger();
+    private volatile FluxSink<List<SseFrame>> sink;
+    private volatile boolean closed;
+    // When a frame other than a heartbeat was last handed to the response.
+    private volatile long lastEventNanos = System.nanoTime();
+
+    /**
+     * @param resumeHintFactory Builds the frame sent before an overflow disconnect, given the id of the
+     *                          last event delivered to the client (may be null).
+     * @param batchWindowNanos How long the first frame of a burst may wait for others; 0 writes every frame on its own.
+     */
+    public SseConnection(String userId, String connectionId, int capacity, OverflowPolicy overflowPolicy,
+                         AtomicLong podBufferedBytes, Function<String, SseFrame> resumeHintFactory,
+                         long batchWindowNanos, int maxBatchSize) {
+        this.userId = userId;
+        this.connectionId = connectionId;
+        this.capacity = capacity;
+        this.overflowPolicy = overflowPolicy;
+        this.podBufferedBytes = podBufferedBytes;
+        this.resumeHintFactory = resumeHintFactory;
+        this.batchWindowNanos = batchWindowNanos;
+        this.maxBatchSize = batchWindowNanos > 0 ? Math.max(1, maxBatchSize) : 1;
+    }
+
+    /**
+     * @return The stream of frame batches for the HTTP response, one batch per network write.
+     *         It must be subscribed to only once.
+     */
+    public Flux<List<SseFrame>> asFlux() {
+        return Flux.create(this::attach, FluxSink.OverflowStrategy.BUFFER);
+    }
+
+    private void attach(FluxSink<List<SseFrame>> fluxSink) {
+        this.sink = fluxSink;
+        fluxSink.onRequest(n -> drain());
+        fluxSink.onDispose(this::close);
+        drain();
+    }
+
+    public OfferResult offer(SseFrame frame) {
+        OfferResult result = OfferResult.QUEUED;
+        synchronized (this) {
+            if (closed || completing) {
+                return OfferResult.CLOSED;
+            }
+            boolean heartbeat = frame.getEventType() == SseEventType.HEARTBEAT;
+            if (heartbeat && queuedHeartbeats > 0 && overflowPolicy == OverflowPolicy.COALESCE_HEARTBEATS) {
+                return OfferResult.COALESCED;
+            }
+            if (queue.size() >= capacity) {
+                result = makeRoom();
+            }
+            if (result == OfferResult.DISCONNECTED) {
+                discardQueued();
+                enqueue(resumeHintFactory.apply(lastDeliveredEventId));
+                completing = true;
+                endHold();
+            } else {
+                enqueue(frame);
+                updateHold(frame);
+            }
+        }
+        drain();
+        return result;
+    }
+
+    // Called with the lock held, after a frame was queued.
+    private void updateHold(SseFrame frame) {
+        if (batchWindowNanos <= 0) {
+            return;
+        }
+        if (frame.isUrgent() || queue.size() >= maxBatchSize) {
+            endHold();
+        } else if (!holding && queue.size() == 1) {
+            holding = true;
+            flushTimer = Schedulers.parallel().schedule(this::windowElapsed, batchWindowNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // Called with the lock held.
+    private void endHold() {
+        holding = false;
+        if (flushTimer != null) {
+            flushTimer.dispose();
+            flushTimer = null;
+        }
+    }
+
+    private void windowElapsed() {
+        synchronized (this) {
+            holding = false;
+            flushTimer = null;
+        }
+        drain();
+    }
+
+    // Called with the lock held and a full queue.
+    private OfferResult makeRoom() {
+        switch (overflowPolicy) {
+            case DROP_OLDEST:
+                releaseBytes(queue.poll());
+                return OfferResult.DROPPED_OLDEST;
+            case COALESCE_HEARTBEATS:
+                if (queuedHeartbeats > 0) {
+                    removeQueuedHeartbeats();
+                    return OfferResult.COALESCED;
+                }
+                // Nothing left to coalesce: the queue is full of real events, so fall back to a clean disconnect.
+                return OfferResult.DISCONNECTED;
+            case DISCONNECT:
+            default:
+                return OfferResult.DISCONNECTED;
+        }
+    }
+
+    private void removeQueuedHeartbeats() {
+        Iterator<SseFrame> it = queue.iterator();
+        while (it.hasNext()) {
+            SseFrame queued = it.next();
+            if (queued.getEventType() == SseEventType.HEARTBEAT) {
+                it.remove();
+                releaseBytes(queued);
+            }
+        }
+    }
+
+    private void discardQueued() {
+        queue.forEach(this::releaseBytes);
+        queue.clear();
+    }
+
+    private void enqueue(SseFrame frame) {
+        if (frame == null) {
+            return;
+        }
+        queue.add(frame);
+        queuedBytes += frame.size();
+        podBufferedBytes.addAndGet(frame.size());
+        if (frame.getEventType() == SseEventType.HEARTBEAT) {
+            queuedHeartbeats++;
+        }
+    }
+
+    private void releaseBytes(SseFrame frame) {
+        if (frame != null) {
+            queuedBytes -= frame.size();
+            podBufferedBytes.addAndGet(-frame.size());
+            if (frame.getEventType() == SseEventType.HEARTBEAT) {
+                queuedHeartbeats--;
+            }
+        }
+    }
+
+    /**
+     * @return The next frames to write together, or null while the queue is empty or a batching window is open.
+     */
+    private synchronized List<SseFrame> pollBatch() {
+        if (holding || queue.isEmpty()) {
+            return null;
+        }
+        int size = Math.min(maxBatchSize, queue.size());
+        if (size == 1) {
+            return List.of(poll());
+        }
+        List<SseFrame> batch = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            batch.add(poll());
+        }
+        return batch;
+    }
+
+    // Called with the lock held.
+    private SseFrame poll() {
+        SseFrame frame = queue.poll();
+        releaseBytes(frame);
+        if (frame != null && frame.getEventId() != null) {
+            lastDeliveredEventId = frame.getEventId();
+        }
+        if (frame != null && frame.getEventType() != SseEventType.HEARTBEAT) {
+            lastEventNanos = System.nanoTime();
+        }
+        return frame;
+    }
+
+    private synchronized boolean isDrainedForCompletion() {
+        return completing && queue.isEmpty();
+    }
+
+    /**
+     * Emits queued frames for as long as the response has outstanding demand.
+     * Serialized with a work-in-progress counter so concurrent offers never emit in parallel.
+     */
+    private void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            FluxSink<List<SseFrame>> s = sink;
+            if (s != null && !closed) {
+                while (s.requestedFromDownstream() > 0) {
+                    List<SseFrame> next = pollBatch();
+                    if (next == null) {
+                        break;
+                    }
+                    s.next(next);
+                }
+                if (isDrainedForCompletion()) {
+                    s.complete();
+                }
+            }
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    /**
+     * Completes the stream once the frames already queued have been written.
+     */
+    public void complete() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            completing = true;
+            endHold();
+        }
+        drain();
+    }
+
+    private void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            endHold();
+            discardQueued();
+        }
+    }
+
+    /**
+     * Tracks offers that found the connection already closed, so a stream that was never
+     * cleaned up can be detected by the caller.
+     * @return The number of failed offers in a row, including this one.
+     */
+    public synchronized int recordFailedOffer() {
+        return ++consecutiveFailedOffers;
+    }
+
+    public synchronized void resetFailedOffers() {
+        consecutiveFailedOffers = 0;
+    }
+
+    /**
+     * @return Whether a real event was written within the given window, making a heartbeat redundant.
+     */
+    public boolean hadEventWithin(long windowNanos) {
+        return System.nanoTime() - lastEventNanos < windowNanos;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public synchronized int getQueueDepth() {
+        return queue.size();
+    }
+
+    public synchronized long getQueuedBytes() {
+        return queuedBytes;
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.broadcast.user.service.sse;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * The SSE connections held by this pod, indexed by connection id and by user.
+ * <p>
+ * Users are spread over a fixed number of stripes by the hash of their id. Within a stripe each
+ * user maps to an immutable array of their connections that is replaced on every connect or
+ * disconnect, so delivering to a user or to the whole pod iterates plain arrays and never copies
+ * or locks the index. Connections are registered far less often than events are delivered.
+ */
+public final class SseConnectionRegistry {
+
+    private static final SseConnection[] NO_CONNECTIONS = new SseConnection[0];
+
+    private final ConcurrentHashMap<String, SseConnection> byConnectionId = new ConcurrentHashMap<>();
+    private final Stripe[] stripes;
+
+    /**
+     * @param stripeCount The number of stripes; used as given, so that it can match the number of event loops.
+     */
+    public SseConnectionRegistry(int stripeCount) {
+        int size = Math.max(1, stripeCount);
+        this.stripes = new Stripe[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    public void register(SseConnection connection) {
+        SseConnection previous = byConnectionId.put(connection.getConnectionId(), connection);
+        if (previous != null) {
+            stripeOf(previous.getUserId()).remove(previous);
+        }
+        stripeOf(connection.getUserId()).add(connection);
+    }
+
+    /**
+     * @return The removed connection, or null if it was not registered.
+     */
+    public SseConnection unregister(String connectionId) {
+        SseConnection connection = byConnectionId.remove(connectionId);
+        if (connection != null) {
+            stripeOf(connection.getUserId()).remove(connection);
+        }
+        return connection;
+    }
+
+    public SseConnection get(String connectionId) {
+        return byConnectionId.get(connectionId);
+    }
+
+    /**
+     * @return A snapshot of the user's connections on this pod. The array is shared and must not be modified.
+     */
+    public SseConnection[] getUserConnections(String userId) {
+        SseConnection[] connections = stripeOf(userId).users.get(userId);
+        return connections != null ? connections : NO_CONNECTIONS;
+    }
+
+    public boolean isUserConnected(String userId) {
+        return stripeOf(userId).users.containsKey(userId);
+    }
+
+    /**
+     * @return A live, read-only view of the connection ids on this pod.
+     */
+    public Set<String> connectionIds() {
+        return byConnectionId.keySet();
+    }
+
+    public int size() {
+        return byConnectionId.size();
+    }
+
+    public int userCount() {
+        int count = 0;
+        for (Stripe stripe : stripes) {
+            count += stripe.users.size();
+        }
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return byConnectionId.isEmpty();
+    }
+
+    public int stripeCount() {
+        return stripes.length;
+    }
+
+    public int stripeIndexOf(String userId) {
+        return Math.floorMod(spread(userId.hashCode()), stripes.length);
+    }
+
+    public void forEach(Consumer<SseConnection> action) {
+        for (int i = 0; i < stripes.length; i++) {
+            forEachInStripe(i, action);
+        }
+    }
+
+    public void forEachInStripe(int stripeIndex, Consumer<SseConnection> action) {
+        for (SseConnection[] connections : stripes[stripeIndex].users.values()) {
+            for (SseConnection connection : connections) {
+                action.accept(connection);
+            }
+        }
+    }
+
+    public void forEachUser(Consumer<String> action) {
+        for (int i = 0; i < stripes.length; i++) {
+            forEachUserInStripe(i, action);
+        }
+    }
+
+    public void forEachUserInStripe(int stripeIndex, Consumer<String> action) {
+        for (String userId : stripes[stripeIndex].users.keySet()) {
+            action.accept(userId);
+        }
+    }
+
+    private Stripe stripeOf(String userId) {
+        return stripes[stripeIndexOf(userId)];
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static final class Stripe {
+
+        private final ConcurrentHashMap<String, SseConnection[]> users = new ConcurrentHashMap<>();
+
+        void add(SseConnection connection) {
+            users.compute(connection.getUserId(), (userId, current) -> {
+                if (current == null) {
+                    return new SseConnection[] {connection};
+                }
+                SseConnection[] updated = Arrays.copyOf(current, current.length + 1);
+                updated[current.length] = connection;
+                return updated;
+            });
+        }
+
+        void remove(SseConnection connection) {
+            users.computeIfPresent(connection.getUserId(), (userId, current) -> {
+                int index = -1;
+                for (int i = 0; i < current.length; i++) {
+                    if (current[i] == connection) {
+                        index = i;
+                        break;
+                    }
+                }
+                if (index < 0) {
+                    return current;
+                }
+                if (current.length == 1) {
+                    return null;
+                }
+                SseConnection[] updated = new SseConnection[current.length - 1];
+                System.arraycopy(current, 0, updated, 0, index);
+                System.arraycopy(current, index + 1, updated, index, current.length - index - 1);
+                return updated;
+            });
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.broadcast.user.service.sse;
+
+import com.example.broadcast.shared.util.Constants.SseEventType;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import lombok.AccessLevel;
+import lombok.Getter;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A Server-Sent Event that has already been encoded to its wire form
+ * ({@code id:/event:/data:} lines followed by a blank line).
+ * <p>
+ * A frame is encoded once and then shared by every connection it is written to. Each write
+ * hands Netty a retained duplicate of the same read-only buffer, so a pod-wide fan-out costs
+ * one small wrapper per connection instead of one full encoding and copy per connection.
+ * The backing buffer is an unpooled heap buffer: the duplicates share its reference count,
+ * and the frame itself is reclaimed by the GC once nothing holds on to it.
+ */
+@Getter
+public final class SseFrame {
+
+    private static final NettyDataBufferFactory BUFFER_FACTORY = new NettyDataBufferFactory(UnpooledByteBufAllocator.DEFAULT);
+
+    private final SseEventType eventType;
+    private final String eventId;
+    // Urgent frames are never held back by the per-connection batching window.
+    private final boolean urgent;
+    @Getter(AccessLevel.NONE)
+    private final ByteBuf content;
+    // The replay rings holding this frame; a frame delivered to many users counts once against the pod budget.
+    @Getter(AccessLevel.NONE)
+    private final AtomicInteger replayHolders = new AtomicInteger();
+
+    private SseFrame(SseEventType eventType, String eventId, boolean urgent, ByteBuf content) {
+        this.eventType = eventType;
+        this.eventId = eventId;
+        this.urgent = urgent;
+        this.content = content;
+    }
+
+    public static SseFrame encode(SseEventType eventType, String eventId, String data) {
+        return encode(eventType, eventId, data, false);
+    }
+
+    /**
+     * Encodes an event using the same field order as Spring's {@code ServerSentEventHttpMessageWriter}.
+     * @param eventType The type of the event, written as the {@code event:} field.
+     * @param eventId The optional event id, written as the {@code id:} field.
+     * @param data The already serialized payload; multi-line data is split into several {@code data:} lines.
+     * @param urgent Whether the frame must be flushed immediately rather than batched.
+     * @return The encoded frame.
+     */
+    public static SseFrame encode(SseEventType eventType, String eventId, String data, boolean urgent) {
+        StringBuilder sb = new StringBuilder(data.length() + 64);
+        if (eventId != null) {
+            sb.append("id:").append(eventId).append('\n');
+        }
+        sb.append("event:").append(eventType.name()).append('\n');
+        sb.append("data:").append(data.replace("\n", "\ndata:")).append('\n');
+        sb.append('\n');
+
+        byte[] bytes = sb.toString().getBytes(StandardCharsets.UTF_8);
+        return new SseFrame(eventType, eventId, urgent, Unpooled.wrappedBuffer(bytes).asReadOnly());
+    }
+
+    /**
+     * @return The encoded size of this frame in bytes.
+     */
+    public int size() {
+        return content.readableBytes();
+    }
+
+    /**
+     * Returns a buffer view over this frame for a single write. The view has its own reader
+     * index and holds one reference, which the server releases once the bytes are flushed.
+     */
+    public DataBuffer retainedBuffer() {
+        return BUFFER_FACTORY.wrap(content.retainedDuplicate());
+    }
+
+    /**
+     * Returns one buffer over several frames, in order, so that they go out in a single write.
+     * The frames' bytes are not copied; the buffer is a composite of retained views.
+     */
+    public static DataBuffer joinRetained(List<SseFrame> batch) {
+        if (batch.size() == 1) {
+            return batch.get(0).retainedBuffer();
+        }
+        List<DataBuffer> buffers = new ArrayList<>(batch.size());
+        for (SseFrame frame : batch) {
+            buffers.add(frame.retainedBuffer());
+        }
+        return BUFFER_FACTORY.join(buffers);
+    }
+
+    /**
+     * @return Whether this is the first replay ring to hold the frame.
+     */
+    boolean retainForReplay() {
+        return replayHolders.getAndIncrement() == 0;
+    }
+
+    /**
+     * @return Whether this was the last replay ring to hold the frame.
+     */
+    boolean releaseFromReplay() {
+        return replayHolders.decrementAndGet() == 0;
+    }
+
+    @Override
+    public String toString() {
+        return "SseFrame[" + eventType + ", id=" + eventId + (urgent ? ", urgent" : "") + ", " + size() + " bytes]";
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.broadcast.user.service.sse;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Locale;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compresses one SSE response as a single gzip or deflate stream.
+ * <p>
+ * Every write is sync-flushed, so the client can decode each event (or batch) as soon as it
+ * arrives, while the compressor keeps its window across writes. The window acts as a dictionary
+ * shared by all the events of the connection: the repeated JSON field names and event headers
+ * compress to back-references after the first few events.
+ * <p>
+ * Each instance holds a native {@link Deflater} and must be closed when the stream ends.
+ */
+public final class SseStreamCompressor {
+
+    public enum Encoding {
+        GZIP("gzip"),
+        DEFLATE("deflate");
+
+        private final String headerValue;
+
+        Encoding(String headerValue) {
+            this.headerValue = headerValue;
+        }
+
+        public String headerValue() {
+            return headerValue;
+        }
+
+        /**
+         * Picks the encoding for a request, preferring gzip.
+         * @param acceptEncoding The Accept-Encoding request header; may be null.
+         * @return The encoding to use, or null if the client accepts neither.
+         */
+        public static Encoding negotiate(String acceptEncoding) {
+            if (acceptEncoding == null) {
+                return null;
+            }
+            boolean deflate = false;
+            for (String token : acceptEncoding.toLowerCase(Locale.ROOT).split(",")) {
+                String[] parts = token.split(";");
+                String coding = parts[0].trim();
+                if (parts.length > 1 && parts[1].trim().matches("q=0(\\.0*)?")) {
+                    continue;
+                }
+                if (coding.equals(GZIP.headerValue)) {
+                    return GZIP;
+                }
+                if (coding.equals(DEFLATE.headerValue)) {
+                    deflate = true;
+                }
+            }
+            return deflate ? DEFLATE : null;
+        }
+    }
+
+    private final ByteArrayOutputStream compressed = new ByteArrayOutputStream(1024);
+    // Only set for deflate; the gzip stream owns its deflater and ends it on close.
+    private final Deflater deflater;
+    private final DeflaterOutputStream stream;
+    private boolean closed;
+
+    public SseStreamCompressor(Encoding encoding) {
+        try {
+            if (encoding == Encoding.GZIP) {
+                this.deflater = null;
+                this.stream = new GZIPOutputStream(compressed, 1024, true);
+            } else {
+                this.deflater = new Deflater();
+                this.stream = new DeflaterOutputStream(compressed, deflater, 1024, true);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Compresses and sync-flushes one write. The input buffer is released.
+     */
+    public synchronized DataBuffer compress(DataBuffer input) {
+        try {
+            byte[] bytes = new byte[input.readableByteCount()];
+            input.read(bytes);
+            stream.write(bytes);
+            stream.flush();
+            DataBuffer output = DefaultDataBufferFactory.sharedInstance.wrap(compressed.toByteArray());
+            compressed.reset();
+            return output;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            DataBufferUtils.release(input);
+        }
+    }
+
+    /**
+     * Frees the native compressor once the response has ended.
+     */
+    public synchronized void close() {
+        if (!closed) {
+            closed = true;
+            try {
+                stream.close();
+            } catch (IOException ignored) {
+                // Only the in-memory buffer is written to; nothing to report.
+            }
+            if (deflater != null) {
+                deflater.end();
+            }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.broadcast.user.service.sse;
+
+import com.example.broadcast.shared.config.AppProperties.Sse.OverflowPolicy;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HeartbeatWheelTest {
+
+    private final AtomicLong podBufferedBytes = new AtomicLong();
+
+    @Test
+    void everyConnectionIsDueExactlyOncePerRevolution() {
+        HeartbeatWheel wheel = new HeartbeatWheel(8);
+        List<SseConnection> connections = connections(100);
+        connections.forEach(wheel::add);
+
+        List<SseConnection> due = new ArrayList<>();
+        for (int i = 0; i < wheel.slotCount(); i++) {
+            due.addAll(wheel.advance());
+        }
+
+        assertThat(due).hasSize(connections.size()).containsExactlyInAnyOrderElementsOf(connections);
+    }
+
+    @Test
+    void connectionsAreSpreadOverTheSlots() {
+        HeartbeatWheel wheel = new HeartbeatWheel(10);
+        connections(1000).forEach(wheel::add);
+
+        for (int i = 0; i < wheel.slotCount(); i++) {
+            assertThat(wheel.advance()).isNotEmpty();
+        }
+    }
+
+    @Test
+    void theWheelComesBackToTheSameSlot() {
+        HeartbeatWheel wheel = new HeartbeatWheel(4);
+        connections(20).forEach(wheel::add);
+
+        Set<SseConnection> first = new HashSet<>(wheel.advance());
+        for (int i = 1; i < wheel.slotCount(); i++) {
+            wheel.advance();
+        }
+
+        assertThat(wheel.advance()).containsExactlyInAnyOrderElementsOf(first);
+    }
+
+    @Test
+    void removedConnectionsAreNoLongerDue() {
+        HeartbeatWheel wheel = new HeartbeatWheel(4);
+        List<SseConnection> connections = connections(20);
+        connections.forEach(wheel::add);
+        SseConnection removed = connections.get(7);
+
+        wheel.remove(removed);
+
+        for (int i = 0; i < wheel.slotCount(); i++) {
+            assertThat(wheel.advance()).doesNotContain(removed);
+        }
+    }
+
+    @Test
+    void slotCountIsAtLeastOne() {
+        HeartbeatWheel wheel = new HeartbeatWheel(0);
+        SseConnection connection = connections(1).get(0);
+        wheel.add(connection);
+
+        assertThat(wheel.slotCount()).isEqualTo(1);
+        assertThat(wheel.advance()).containsExactly(connection);
+        assertThat(wheel.advance()).containsExactly(connection);
+    }
+
+    private List<SseConnection> connections(int count) {
+        List<SseConnection> connections = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            connections.add(new SseConnection("user-" + i, "connection-" + i, 16, OverflowPolicy.DISCONNECT,
+                    podBufferedBytes, lastEventId -> null, 0L, 1));
+        }
+        return connections;
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.broadcast.user.service.sse;
+
+import com.example.broadcast.shared.util.Constants.SseEventType;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReplayRingTest {
+
+    private static final long UNLIMITED = Long.MAX_VALUE;
+
+    private final AtomicLong podBytes = new AtomicLong();
+
+    @Test
+    void framesAfterReturnsTheMissedFramesOldestFirst() {
+        ReplayRing ring = new ReplayRing(10, UNLIMITED, podBytes);
+        appendMessages(ring, "1", "2", "3", "4");
+
+        assertThat(eventIds(ring.framesAfter("2"))).containsExactly("3", "4");
+        assertThat(ring.framesAfter("4")).isEmpty();
+    }
+
+    @Test
+    void framesAfterAnUnknownEventIsNull() {
+        ReplayRing ring = new ReplayRing(10, UNLIMITED, podBytes);
+        appendMessages(ring, "1", "2");
+
+        assertThat(ring.framesAfter("9")).isNull();
+    }
+
+    @Test
+    void framesWithoutAnIdAreNotKept() {
+        ReplayRing ring = new ReplayRing(10, UNLIMITED, podBytes);
+        appendMessages(ring, "1");
+        ring.append(SseFrame.encode(SseEventType.HEARTBEAT, null, "{}"));
+
+        assertThat(ring.framesAfter("1")).isEmpty();
+        assertThat(podBytes.get()).isEqualTo(message("1").size());
+    }
+
+    @Test
+    void eventsOfDifferentTypesForTheSameBroadcastAreResumedSeparately() {
+        ReplayRing ring = new ReplayRing(10, UNLIMITED, podBytes);
+        ring.append(SseFrame.encode(SseEventType.MESSAGE, "7", "{}"));
+        ring.append(SseFrame.encode(SseEventType.READ_RECEIPT, "READ_RECEIPT:7", "{}"));
+        ring.append(SseFrame.encode(SseEventType.MESSAGE_REMOVED, "MESSAGE_REMOVED:7", "{}"));
+
+        assertThat(eventIds(ring.framesAfter("7"))).containsExactly("READ_RECEIPT:7", "MESSAGE_REMOVED:7");
+        assertThat(eventIds(ring.framesAfter("READ_RECEIPT:7"))).containsExactly("MESSAGE_REMOVED:7");
+    }
+
+    @Test
+    void capacityDropsTheOldestFrames() {
+        ReplayRing ring = new ReplayRing(3, UNLIMITED, podBytes);
+        appendMessages(ring, "1", "2", "3", "4", "5");
+
+        assertThat(ring.framesAfter("2")).isNull();
+        assertThat(eventIds(ring.framesAfter("3"))).containsExactly("4", "5");
+        assertThat(podBytes.get()).isEqualTo(3L * message("1").size());
+    }
+
+    @Test
+    void byteBudgetDropsTheOldestFrames() {
+        long frameSize = message("1").size();
+        ReplayRing ring = new ReplayRing(10, 2 * frameSize, podBytes);
+        appendMessages(ring, "1", "2", "3");
+
+        assertThat(ring.framesAfter("1")).isNull();
+        assertThat(eventIds(ring.framesAfter("2"))).containsExactly("3");
+        assertThat(podBytes.get()).isEqualTo(2 * frameSize);
+    }
+
+    @Test
+    void theLastFrameIsKeptEvenWhenItExceedsTheByteBudget() {
+        long frameSize = message("1").size();
+        ReplayRing ring = new ReplayRing(10, frameSize / 2, podBytes);
+        appendMessages(ring, "1", "2");
+
+        assertThat(ring.framesAfter("1")).isNull();
+        assertThat(ring.framesAfter("2")).isEmpty();
+        assertThat(podBytes.get()).isEqualTo(frameSize);
+    }
+
+    @Test
+    void aFrameHeldByTwoRingsCountsOnceAgainstThePodBudget() {
+        SseFrame shared = message("1");
+        ReplayRing first = new ReplayRing(10, UNLIMITED, podBytes);
+        ReplayRing second = new ReplayRing(10, UNLIMITED, podBytes);
+        first.append(shared);
+        second.append(shared);
+
+        assertThat(podBytes.get()).isEqualTo(shared.size());
+
+        first.clear();
+        assertThat(podBytes.get()).isEqualTo(shared.size());
+
+        second.clear();
+        assertThat(podBytes.get()).isZero();
+    }
+
+    @Test
+    void clearReleasesThePodBudget() {
+        ReplayRing ring = new ReplayRing(10, UNLIMITED, podBytes);
+        appendMessages(ring, "1", "2");
+
+        ring.clear();
+
+        assertThat(podBytes.get()).isZero();
+        assertThat(ring.framesAfter("1")).isNull();
+    }
+
+    private static void appendMessages(ReplayRing ring, String... eventIds) {
+        for (String eventId : eventIds) {
+            ring.append(message(eventId));
+        }
+    }
+
+    private static SseFrame message(String eventId) {
+        return SseFrame.encode(SseEventType.MESSAGE, eventId, "{\"content\":\"replayed\"}");
+    }
+
+    private static List<String> eventIds(List<SseFrame> frames) {
+        return frames.stream().map(SseFrame::getEventId).toList();
+    }
+}
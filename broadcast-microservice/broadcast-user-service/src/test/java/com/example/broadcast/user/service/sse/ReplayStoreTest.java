@@ -0,0 +1,113 @@
+package com.example.broadcast.user.service.sse;
+
+import com.example.broadcast.shared.util.Constants.SseEventType;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReplayStoreTest {
+
+    private static final long NO_RETENTION = 0L;
+
+    @Test
+    void connectionsOfTheSameUserShareOneRing() {
+        ReplayStore store = new ReplayStore(10, Long.MAX_VALUE, Long.MAX_VALUE, NO_RETENTION);
+
+        ReplayRing ring = store.attach("user-1");
+
+        assertThat(store.attach("user-1")).isSameAs(ring);
+        assertThat(store.get("user-1")).isSameAs(ring);
+        assertThat(store.size()).isEqualTo(1);
+    }
+
+    @Test
+    void ringsAreKeptWhileAConnectionIsAttached() {
+        ReplayStore store = new ReplayStore(10, Long.MAX_VALUE, Long.MAX_VALUE, NO_RETENTION);
+        store.attach("user-1");
+        store.attach("user-1");
+        store.detach("user-1");
+
+        store.evictExpired();
+
+        assertThat(store.get("user-1")).isNotNull();
+    }
+
+    @Test
+    void detachedRingsAreKeptForTheRetentionPeriod() {
+        ReplayStore store = new ReplayStore(10, Long.MAX_VALUE, Long.MAX_VALUE, Duration.ofHours(1).toNanos());
+        store.attach("user-1");
+        store.detach("user-1");
+
+        store.evictExpired();
+
+        assertThat(store.get("user-1")).isNotNull();
+    }
+
+    @Test
+    void expiredRingsAreDroppedAndReleaseTheirBytes() {
+        ReplayStore store = new ReplayStore(10, Long.MAX_VALUE, Long.MAX_VALUE, NO_RETENTION);
+        ReplayRing ring = store.attach("user-1");
+        ring.append(message("1"));
+        assertThat(store.getBufferedBytes()).isPositive();
+        store.detach("user-1");
+
+        store.evictExpired();
+
+        assertThat(store.get("user-1")).isNull();
+        assertThat(store.getBufferedBytes()).isZero();
+    }
+
+    @Test
+    void podBudgetEmptiesTheLeastRecentlyUsedRingsFirst() {
+        long frameSize = message("1").size();
+        ReplayStore store = new ReplayStore(10, Long.MAX_VALUE, 2 * frameSize, NO_RETENTION);
+        ReplayRing idle = append(store, "user-1", "1");
+        ReplayRing active = append(store, "user-2", "2");
+        ReplayRing appendedTo = append(store, "user-3", "3");
+
+        assertThat(idle.framesAfter("1")).isNull();
+        assertThat(active.framesAfter("2")).isEmpty();
+        assertThat(appendedTo.framesAfter("3")).isEmpty();
+        assertThat(store.getBufferedBytes()).isEqualTo(2 * frameSize);
+    }
+
+    @Test
+    void theAppendedFrameSurvivesPodBudgetPressure() {
+        long frameSize = message("1").size();
+        ReplayStore store = new ReplayStore(10, Long.MAX_VALUE, frameSize / 2, NO_RETENTION);
+        ReplayRing other = append(store, "user-1", "1");
+        ReplayRing appendedTo = append(store, "user-2", "2");
+
+        assertThat(other.framesAfter("1")).isNull();
+        assertThat(appendedTo.framesAfter("2")).isEmpty();
+    }
+
+    @Test
+    void aFrameDeliveredToSeveralUsersCountsOnce() {
+        SseFrame broadcast = message("1");
+        ReplayStore store = new ReplayStore(10, Long.MAX_VALUE, 2L * broadcast.size(), NO_RETENTION);
+        ReplayRing first = store.attach("user-1");
+        ReplayRing second = store.attach("user-2");
+        ReplayRing third = store.attach("user-3");
+        for (ReplayRing ring : new ReplayRing[] {first, second, third}) {
+            ring.append(broadcast);
+            store.enforcePodBudget(ring);
+        }
+
+        assertThat(store.getBufferedBytes()).isEqualTo(broadcast.size());
+        assertThat(first.framesAfter("1")).isEmpty();
+    }
+
+    private static ReplayRing append(ReplayStore store, String userId, String eventId) {
+        ReplayRing ring = store.attach(userId);
+        ring.append(message(eventId));
+        store.enforcePodBudget(ring);
+        return ring;
+    }
+
+    private static SseFrame message(String eventId) {
+        return SseFrame.encode(SseEventType.MESSAGE, eventId, "{}");
+    }
+}
@@ -0,0 +1,209 @@
+package com.example.broadcast.user.service.sse;
+
+import com.example.broadcast.shared.config.AppProperties.Sse.OverflowPolicy;
+import com.example.broadcast.shared.util.Constants.SseEventType;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.BaseSubscriber;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SseConnectionTest {
+
+    private static final long NO_BATCHING = 0L;
+
+    private final AtomicLong podBufferedBytes = new AtomicLong();
+    private final AtomicReference<String> resumeHintFor = new AtomicReference<>();
+
+    @Test
+    void dropOldestMakesRoomForTheNewFrame() {
+        SseConnection connection = connection(2, OverflowPolicy.DROP_OLDEST, NO_BATCHING, 1);
+
+        assertThat(connection.offer(message("1"))).isEqualTo(SseConnection.OfferResult.QUEUED);
+        assertThat(connection.offer(message("2"))).isEqualTo(SseConnection.OfferResult.QUEUED);
+        assertThat(connection.offer(message("3"))).isEqualTo(SseConnection.OfferResult.DROPPED_OLDEST);
+
+        assertThat(connection.getQueueDepth()).isEqualTo(2);
+        assertThat(podBufferedBytes.get()).isEqualTo(connection.getQueuedBytes());
+
+        RecordingSubscriber subscriber = subscribe(connection, Long.MAX_VALUE);
+        assertThat(subscriber.eventIds()).containsExactly("2", "3");
+        assertThat(podBufferedBytes.get()).isZero();
+    }
+
+    @Test
+    void coalesceHeartbeatsKeepsOnePendingHeartbeat() {
+        SseConnection connection = connection(4, OverflowPolicy.COALESCE_HEARTBEATS, NO_BATCHING, 1);
+
+        assertThat(connection.offer(heartbeat())).isEqualTo(SseConnection.OfferResult.QUEUED);
+        assertThat(connection.offer(heartbeat())).isEqualTo(SseConnection.OfferResult.COALESCED);
+
+        assertThat(connection.getQueueDepth()).isEqualTo(1);
+    }
+
+    @Test
+    void coalesceHeartbeatsDropsQueuedHeartbeatsWhenFull() {
+        SseConnection connection = connection(2, OverflowPolicy.COALESCE_HEARTBEATS, NO_BATCHING, 1);
+        connection.offer(heartbeat());
+        connection.offer(message("1"));
+
+        assertThat(connection.offer(message("2"))).isEqualTo(SseConnection.OfferResult.COALESCED);
+
+        RecordingSubscriber subscriber = subscribe(connection, Long.MAX_VALUE);
+        assertThat(subscriber.eventTypes()).containsExactly(SseEventType.MESSAGE, SseEventType.MESSAGE);
+        assertThat(podBufferedBytes.get()).isZero();
+    }
+
+    @Test
+    void coalesceHeartbeatsDisconnectsWhenOnlyRealEventsAreQueued() {
+        SseConnection connection = connection(2, OverflowPolicy.COALESCE_HEARTBEATS, NO_BATCHING, 1);
+        connection.offer(message("1"));
+        connection.offer(message("2"));
+
+        assertThat(connection.offer(message("3"))).isEqualTo(SseConnection.OfferResult.DISCONNECTED);
+        assertThat(connection.getQueueDepth()).isEqualTo(1);
+    }
+
+    @Test
+    void disconnectSendsTheResumeHintThenCompletes() throws InterruptedException {
+        SseConnection connection = connection(2, OverflowPolicy.DISCONNECT, NO_BATCHING, 1);
+        RecordingSubscriber subscriber = subscribe(connection, 1);
+        connection.offer(message("1"));
+        connection.offer(message("2"));
+        connection.offer(message("3"));
+
+        assertThat(connection.offer(message("4"))).isEqualTo(SseConnection.OfferResult.DISCONNECTED);
+        assertThat(connection.offer(message("5"))).isEqualTo(SseConnection.OfferResult.CLOSED);
+
+        subscriber.request(Long.MAX_VALUE);
+        assertThat(subscriber.completed.await(1, TimeUnit.SECONDS)).isTrue();
+        assertThat(subscriber.eventTypes()).containsExactly(SseEventType.MESSAGE, SseEventType.RECONNECT);
+        // The hint names the last event the client received, not the last one queued.
+        assertThat(resumeHintFor.get()).isEqualTo("1");
+        assertThat(podBufferedBytes.get()).isZero();
+    }
+
+    @Test
+    void completeWritesQueuedFramesFirst() throws InterruptedException {
+        SseConnection connection = connection(4, OverflowPolicy.DISCONNECT, NO_BATCHING, 1);
+        connection.offer(message("1"));
+        connection.offer(message("2"));
+        connection.complete();
+
+        assertThat(connection.offer(message("3"))).isEqualTo(SseConnection.OfferResult.CLOSED);
+
+        RecordingSubscriber subscriber = subscribe(connection, Long.MAX_VALUE);
+        assertThat(subscriber.completed.await(1, TimeUnit.SECONDS)).isTrue();
+        assertThat(subscriber.eventIds()).containsExactly("1", "2");
+    }
+
+    @Test
+    void batchingHoldsTheFirstFrameUntilTheBatchIsFull() {
+        SseConnection connection = connection(10, OverflowPolicy.DISCONNECT, Duration.ofSeconds(30).toNanos(), 3);
+        RecordingSubscriber subscriber = subscribe(connection, Long.MAX_VALUE);
+
+        connection.offer(message("1"));
+        connection.offer(message("2"));
+        assertThat(subscriber.batches).isEmpty();
+
+        connection.offer(message("3"));
+        assertThat(subscriber.batches).hasSize(1);
+        assertThat(subscriber.eventIds()).containsExactly("1", "2", "3");
+    }
+
+    @Test
+    void urgentFrameEndsTheHold() {
+        SseConnection connection = connection(10, OverflowPolicy.DISCONNECT, Duration.ofSeconds(30).toNanos(), 8);
+        RecordingSubscriber subscriber = subscribe(connection, Long.MAX_VALUE);
+
+        connection.offer(message("1"));
+        assertThat(subscriber.batches).isEmpty();
+
+        connection.offer(SseFrame.encode(SseEventType.MESSAGE_REMOVED, "2", "{}", true));
+        assertThat(subscriber.batches).hasSize(1);
+        assertThat(subscriber.eventIds()).containsExactly("1", "2");
+    }
+
+    @Test
+    void batchingWindowReleasesAHeldFrame() throws InterruptedException {
+        SseConnection connection = connection(10, OverflowPolicy.DISCONNECT, Duration.ofMillis(20).toNanos(), 8);
+        RecordingSubscriber subscriber = subscribe(connection, Long.MAX_VALUE);
+
+        connection.offer(message("1"));
+
+        assertThat(subscriber.received.await(1, TimeUnit.SECONDS)).isTrue();
+        assertThat(subscriber.eventIds()).containsExactly("1");
+    }
+
+    private SseConnection connection(int capacity, OverflowPolicy policy, long batchWindowNanos, int maxBatchSize) {
+        return new SseConnection("user-1", "connection-1", capacity, policy, podBufferedBytes,
+                lastEventId -> {
+                    resumeHintFor.set(lastEventId);
+                    return SseFrame.encode(SseEventType.RECONNECT, null, "{}", true);
+                },
+                batchWindowNanos, maxBatchSize);
+    }
+
+    private static SseFrame message(String eventId) {
+        return SseFrame.encode(SseEventType.MESSAGE, eventId, "{\"content\":\"message " + eventId + "\"}");
+    }
+
+    private static SseFrame heartbeat() {
+        return SseFrame.encode(SseEventType.HEARTBEAT, null, "{}");
+    }
+
+    private static RecordingSubscriber subscribe(SseConnection connection, long initialDemand) {
+        RecordingSubscriber subscriber = new RecordingSubscriber(initialDemand);
+        connection.asFlux().subscribe(subscriber);
+        return subscriber;
+    }
+
+    private static final class RecordingSubscriber extends BaseSubscriber<List<SseFrame>> {
+
+        private final long initialDemand;
+        private final List<List<SseFrame>> batches = new CopyOnWriteArrayList<>();
+        private final CountDownLatch received = new CountDownLatch(1);
+        private final CountDownLatch completed = new CountDownLatch(1);
+
+        private RecordingSubscriber(long initialDemand) {
+            this.initialDemand = initialDemand;
+        }
+
+        @Override
+        protected void hookOnSubscribe(Subscription subscription) {
+            request(initialDemand);
+        }
+
+        @Override
+        protected void hookOnNext(List<SseFrame> batch) {
+            batches.add(batch);
+            received.countDown();
+        }
+
+        @Override
+        protected void hookOnComplete() {
+            completed.countDown();
+        }
+
+        private List<String> eventIds() {
+            List<String> ids = new ArrayList<>();
+            batches.forEach(batch -> batch.forEach(frame -> ids.add(frame.getEventId())));
+            return ids;
+        }
+
+        private List<SseEventType> eventTypes() {
+            List<SseEventType> types = new ArrayList<>();
+            batches.forEach(batch -> batch.forEach(frame -> types.add(frame.getEventType())));
+            return types;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.broadcast.user.service.sse;
+
+import com.example.broadcast.user.service.sse.SseStreamCompressor.Encoding;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SseStreamCompressorTest {
+
+    private static final String FIRST = "id:1\nevent:MESSAGE\ndata:{\"content\":\"first\"}\n\n";
+    private static final String SECOND = "id:2\nevent:MESSAGE\ndata:{\"content\":\"second\"}\n\n";
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', nullValues = "NONE", value = {
+        "gzip, deflate, br        | GZIP",
+        "deflate, gzip            | GZIP",
+        "deflate                  | DEFLATE",
+        "GZIP                     | GZIP",
+        "gzip;q=0, deflate        | DEFLATE",
+        "gzip;q=0.0, deflate;q=0.5| DEFLATE",
+        "gzip;q=0.5               | GZIP",
+        "deflate;q=0              | NONE",
+        "br, identity             | NONE",
+        "''                       | NONE",
+    })
+    void negotiatePrefersGzipAndSkipsRefusedCodings(String acceptEncoding, Encoding expected) {
+        assertThat(Encoding.negotiate(acceptEncoding)).isEqualTo(expected);
+    }
+
+    @Test
+    void negotiateWithoutTheHeaderUsesNoEncoding() {
+        assertThat(Encoding.negotiate(null)).isNull();
+    }
+
+    @Test
+    void eachDeflateWriteCanBeDecodedOnArrival() throws DataFormatException {
+        SseStreamCompressor compressor = new SseStreamCompressor(Encoding.DEFLATE);
+        Inflater inflater = new Inflater();
+        try {
+            assertThat(inflate(inflater, compressor.compress(buffer(FIRST)))).isEqualTo(FIRST);
+            assertThat(inflate(inflater, compressor.compress(buffer(SECOND)))).isEqualTo(SECOND);
+        } finally {
+            inflater.end();
+            compressor.close();
+        }
+    }
+
+    @Test
+    void eachGzipWriteCanBeDecodedOnArrival() throws IOException {
+        SseStreamCompressor compressor = new SseStreamCompressor(Encoding.GZIP);
+        try {
+            byte[] first = bytes(compressor.compress(buffer(FIRST)));
+            byte[] second = bytes(compressor.compress(buffer(SECOND)));
+
+            // The stream is still open, so only what was written so far is read back.
+            InputStream written = new SequenceInputStream(new ByteArrayInputStream(first), new ByteArrayInputStream(second));
+            try (GZIPInputStream gzip = new GZIPInputStream(written)) {
+                assertThat(new String(gzip.readNBytes(FIRST.length()), StandardCharsets.UTF_8)).isEqualTo(FIRST);
+                assertThat(new String(gzip.readNBytes(SECOND.length()), StandardCharsets.UTF_8)).isEqualTo(SECOND);
+            }
+        } finally {
+            compressor.close();
+        }
+    }
+
+    @Test
+    void laterEventsCompressAgainstTheEarlierOnes() {
+        SseStreamCompressor compressor = new SseStreamCompressor(Encoding.DEFLATE);
+        try {
+            int firstSize = bytes(compressor.compress(buffer(FIRST))).length;
+            int secondSize = bytes(compressor.compress(buffer(SECOND))).length;
+
+            assertThat(secondSize).isLessThan(firstSize);
+        } finally {
+            compressor.close();
+        }
+    }
+
+    private static DataBuffer buffer(String text) {
+        return DefaultDataBufferFactory.sharedInstance.wrap(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static byte[] bytes(DataBuffer buffer) {
+        byte[] bytes = new byte[buffer.readableByteCount()];
+        buffer.read(bytes);
+        return bytes;
+    }
+
+    private static String inflate(Inflater inflater, DataBuffer compressed) throws DataFormatException {
+        inflater.setInput(bytes(compressed));
+        byte[] output = new byte[1024];
+        int length = inflater.inflate(output);
+        return new String(output, 0, length, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.broadcast.gatling
+
+import io.gatling.core.Predef._
+import io.gatling.http.Predef._
+import scala.concurrent.duration._
+import scala.language.postfixOps
+
+/**
+ * A reconnect storm: -Dusers users, each with -Dtabs tabs, all connecting at once. Reports the service's
+ * connection registration time and how many compare-and-set attempts registrations took; a tab turned away
+ * with CONNECTION_LIMIT_REACHED while under the per-user limit fails the "Connected" check. Run it against
+ * the builds before and after atomic registration with the same settings, keeping -Dtabs within the limit.
+ * A build without the registration meters is compared on the Gatling side only: connect time and failed checks.
+ */
+class ConnectStormSimulation extends Simulation {
+
+  private val users = Integer.getInteger("users", 1000).intValue
+  private val tabs = Integer.getInteger("tabs", 3).intValue
+
+  private val metrics = new ServerMetrics(ServerMetrics.userServiceUrl)
+  private val registrations = Meter("broadcast.cache.connection.register")
+  private val registrationTime = Meter("broadcast.cache.connection.register", "TOTAL_TIME")
+  private val registrationMax = Meter("broadcast.cache.connection.register", "MAX")
+  private val attempts = Meter("broadcast.cache.connection.register.attempts")
+  private val attemptsTotal = Meter("broadcast.cache.connection.register.attempts", "TOTAL")
+  private val meters = Seq(registrations, registrationTime, registrationMax, attempts, attemptsTotal)
+  @volatile private var start: Map[Meter, Double] = Map.empty
+
+  val httpProtocol = http
+    .baseUrl(ServerMetrics.userServiceUrl)
+    .acceptHeader("text/event-stream")
+    .disableCaching
+
+  // Consecutive virtual users are the tabs of the same user.
+  val tabFeeder = Iterator.from(0).map(i => Map("ID" -> f"storm-user-${i / tabs}%05d"))
+
+  val stormScenario = scenario("Reconnect Storm")
+    .feed(tabFeeder)
+    .exec(
+      sse("Connect")
+        .get("/api/user/sse/connect?userId=#{ID}")
+        .await(30 seconds)(
+          sse.checkMessage("Connected")
+            .matching(jsonPath("$.event").in("CONNECTED", "CONNECTION_LIMIT_REACHED"))
+            .check(jsonPath("$.event").is("CONNECTED"))
+        )
+    )
+    .pause(5 seconds)
+    .exec(sse("Close Connection").close)
+
+  before {
+    start = metrics.snapshot(meters)
+  }
+
+  after {
+    val end = metrics.snapshot(meters)
+    def delta(meter: Meter): Double = end(meter) - start(meter)
+    val count = delta(registrations)
+    if (count > 0) {
+      println(s"---- $users users x $tabs tabs connecting at once ----")
+      println(f"Registrations:                  $count%,.0f")
+      println(f"Mean registration time (ms):    ${delta(registrationTime) / count * 1000}%.2f")
+      println(f"Max registration time (ms):     ${end(registrationMax) * 1000}%.2f")
+      if (delta(attempts) > 0) {
+        println(f"Mean attempts per registration: ${delta(attemptsTotal) / delta(attempts)}%.3f")
+      }
+    }
+  }
+
+  setUp(
+    stormScenario.inject(atOnceUsers(users * tabs))
+  ).protocols(httpProtocol)
+}
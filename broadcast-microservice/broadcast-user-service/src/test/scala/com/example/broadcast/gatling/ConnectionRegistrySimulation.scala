@@ -0,0 +1,104 @@
+package com.example.broadcast.gatling
+
+import io.gatling.core.Predef._
+import io.gatling.http.Predef._
+import scala.concurrent.duration._
+import scala.language.postfixOps
+
+/**
+ * Holds -Dconnections connections (10000, 50000 and 100000 are the sizes to compare) on one pod and
+ * sends -Dbroadcasts 'ALL' broadcasts to them. Reports the heap the connections hold, and the bytes
+ * allocated and the time taken per fan-out, so that the connection bookkeeping of two builds can be
+ * compared at the same size. Connect latency is in the Gatling report.
+ */
+class ConnectionRegistrySimulation extends Simulation {
+
+  private val connections = Integer.getInteger("connections", 10000).intValue
+  private val broadcasts = Integer.getInteger("broadcasts", 5).intValue
+  private val rampSeconds = Integer.getInteger("rampSeconds", 60).intValue
+  private val broadcastInterval = 10
+
+  private val metrics = new ServerMetrics(ServerMetrics.userServiceUrl)
+  private val heapUsed = Meter("jvm.memory.used", "VALUE", Seq("area:heap"))
+  private val allocated = Meter("jvm.gc.memory.allocated")
+  // Registered from the sharded fan-out on; an older build reports it as 0.
+  private val fanOutTime = Meter("broadcast.sse.fanout.last.emit", "TOTAL_TIME")
+  @volatile private var idle: Map[Meter, Double] = Map.empty
+  @volatile private var connected: Map[Meter, Double] = Map.empty
+  @volatile private var broadcasted: Map[Meter, Double] = Map.empty
+
+  val httpProtocol = http
+    .baseUrl(ServerMetrics.userServiceUrl)
+    .acceptHeader("text/event-stream")
+    .disableCaching
+
+  val userFeeder = Iterator.from(1).map(i => Map("ID" -> f"registry-user-$i%06d"))
+
+  val listenScenario = scenario("Registry Listeners")
+    .feed(userFeeder)
+    .exec(
+      sse("Connect")
+        .get("/api/user/sse/connect?userId=#{ID}")
+        .await(30 seconds)(
+          sse.checkMessage("Connected").matching(jsonPath("$.event").is("CONNECTED")).check(jsonPath("$.event").is("CONNECTED"))
+        )
+    )
+    .repeat(broadcasts) {
+      exec(
+        sse("Receive Broadcast").setCheck
+          .await((rampSeconds + 20 + broadcasts * broadcastInterval) seconds)(
+            sse.checkMessage("Broadcast").matching(jsonPath("$.event").is("MESSAGE")).check(jsonPath("$.event").is("MESSAGE"))
+          )
+      )
+    }
+    .exec(sse("Close Connection").close)
+
+  val broadcastScenario = scenario("Registry Broadcaster")
+    .exec { session =>
+      connected = metrics.snapshot(Seq(heapUsed, allocated, fanOutTime))
+      session
+    }
+    .repeat(broadcasts, "n") {
+      exec(
+        http("Create ALL Broadcast")
+          .post(s"${ServerMetrics.adminServiceUrl}/api/broadcasts")
+          .header("Content-Type", "application/json")
+          .body(StringBody(
+            """
+            {
+              "senderId": "gatling-admin",
+              "senderName": "Gatling Registry Test",
+              "content": "Registry test message #{n}",
+              "targetType": "ALL",
+              "isImmediate": true
+            }
+          """)).asJson
+          .check(status.is(200))
+      ).pause(broadcastInterval seconds)
+    }
+    .exec { session =>
+      broadcasted = metrics.snapshot(Seq(heapUsed, allocated, fanOutTime))
+      session
+    }
+
+  before {
+    idle = metrics.snapshot(Seq(heapUsed))
+  }
+
+  after {
+    if (broadcasted.nonEmpty) {
+      println(s"---- $connections connections, $broadcasts 'ALL' broadcasts ----")
+      println(f"Heap per connection (bytes):         ${(connected(heapUsed) - idle(heapUsed)) / connections}%,.0f")
+      println(f"Allocated per fan-out (bytes):       ${(broadcasted(allocated) - connected(allocated)) / broadcasts}%,.0f")
+      println(f"Fan-out time per broadcast (s):      ${(broadcasted(fanOutTime) - connected(fanOutTime)) / broadcasts}%.4f")
+    }
+  }
+
+  setUp(
+    listenScenario.inject(rampUsers(connections).during(rampSeconds seconds)),
+    broadcastScenario.inject(
+      nothingFor((rampSeconds + 10) seconds),
+      atOnceUsers(1)
+    )
+  ).protocols(httpProtocol)
+}
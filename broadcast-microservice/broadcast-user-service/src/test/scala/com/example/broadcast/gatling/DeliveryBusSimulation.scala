@@ -0,0 +1,92 @@
+package com.example.broadcast.gatling
+
+import io.gatling.core.Predef._
+import io.gatling.http.Predef._
+import scala.concurrent.duration._
+import scala.language.postfixOps
+
+/**
+ * Targeted broadcasts at a steady rate, each sent to one connected user and awaited on that user's stream.
+ * Run it once with the user service on broadcast.delivery.bus=GEODE and once on KAFKA, with the same
+ * -Dusers and -DdurationSeconds, to compare the buses at equal load. The Gatling report has throughput and
+ * percentiles of "Receive Broadcast", timed from the admin's reply to the event's arrival; the service's
+ * own latency, from the event's creation to its receipt on the pod, is printed per bus at the end.
+ */
+class DeliveryBusSimulation extends Simulation {
+
+  private val users = Integer.getInteger("users", 500).intValue
+  private val durationSeconds = Integer.getInteger("durationSeconds", 120).intValue
+  private val pauseMillis = Integer.getInteger("pauseMillis", 1000).intValue
+
+  private val metrics = new ServerMetrics(ServerMetrics.userServiceUrl)
+  private val meters = Seq("GEODE", "KAFKA").flatMap { bus =>
+    Seq("COUNT", "TOTAL_TIME", "MAX").map(statistic => Meter("broadcast.delivery.latency", statistic, Seq(s"bus:$bus")))
+  }
+  @volatile private var start: Map[Meter, Double] = Map.empty
+
+  val httpProtocol = http
+    .baseUrl(ServerMetrics.userServiceUrl)
+    .acceptHeader("text/event-stream")
+    .disableCaching
+
+  val userFeeder = Iterator.from(1).map(i => Map("ID" -> f"bus-user-$i%05d"))
+
+  val deliveryScenario = scenario("Targeted Delivery")
+    .feed(userFeeder)
+    .exec(
+      sse("Connect")
+        .get("/api/user/sse/connect?userId=#{ID}")
+        .await(30 seconds)(
+          sse.checkMessage("Connected").matching(jsonPath("$.event").is("CONNECTED")).check(jsonPath("$.event").is("CONNECTED"))
+        )
+    )
+    .during(durationSeconds seconds) {
+      exec(
+        http("Create Targeted Broadcast")
+          .post(s"${ServerMetrics.adminServiceUrl}/api/broadcasts")
+          .header("Content-Type", "application/json")
+          .body(StringBody(
+            """
+            {
+              "senderId": "gatling-admin",
+              "senderName": "Gatling Delivery Bus Test",
+              "content": "Delivery bus test message for #{ID}",
+              "targetType": "SELECTED",
+              "targetIds": ["#{ID}"],
+              "isImmediate": true
+            }
+          """)).asJson
+          .check(status.is(200))
+      )
+      .exec(
+        sse("Receive Broadcast").setCheck
+          .await(10 seconds)(
+            sse.checkMessage("Broadcast").matching(jsonPath("$.event").is("MESSAGE")).check(jsonPath("$.event").is("MESSAGE"))
+          )
+      )
+      .pause(pauseMillis milliseconds)
+    }
+    .exec(sse("Close Connection").close)
+
+  before {
+    start = metrics.snapshot(meters)
+  }
+
+  after {
+    val end = metrics.snapshot(meters)
+    Seq("GEODE", "KAFKA").foreach { bus =>
+      def delta(statistic: String): Double = {
+        val meter = Meter("broadcast.delivery.latency", statistic, Seq(s"bus:$bus"))
+        end(meter) - start(meter)
+      }
+      val count = delta("COUNT")
+      if (count > 0) {
+        println(f"$bus bus: $count%,.0f events, mean ${delta("TOTAL_TIME") / count * 1000}%.1f ms, max ${end(Meter("broadcast.delivery.latency", "MAX", Seq(s"bus:$bus"))) * 1000}%.1f ms")
+      }
+    }
+  }
+
+  setUp(
+    deliveryScenario.inject(rampUsers(users).during(30 seconds))
+  ).protocols(httpProtocol)
+}
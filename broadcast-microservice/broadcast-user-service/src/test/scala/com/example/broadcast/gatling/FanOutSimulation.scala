@@ -0,0 +1,92 @@
+package com.example.broadcast.gatling
+
+import io.gatling.core.Predef._
+import io.gatling.http.Predef._
+import scala.concurrent.duration._
+import scala.language.postfixOps
+
+/**
+ * One 'ALL' broadcast fanned out to many connections on a single pod. Reports what the user service
+ * allocated and encoded between the broadcast and its delivery to every listener.
+ * Run it once against a build that encodes the event per connection and once against one that shares
+ * an encoded frame, with the same -Dconnections (default 5000).
+ */
+class FanOutSimulation extends Simulation {
+
+  private val connections = Integer.getInteger("connections", 5000).intValue
+  private val rampSeconds = Integer.getInteger("rampSeconds", 30).intValue
+
+  private val metrics = new ServerMetrics(ServerMetrics.userServiceUrl)
+  private val allocated = Meter("jvm.gc.memory.allocated")
+  // The frame counters exist from the encode-once build on; an older build reports them as 0.
+  private val meters = Seq(allocated, Meter("broadcast.sse.frames.encoded"), Meter("broadcast.sse.frames.written"))
+  @volatile private var beforeBroadcast: Map[Meter, Double] = Map.empty
+  @volatile private var afterBroadcast: Map[Meter, Double] = Map.empty
+
+  val httpProtocol = http
+    .baseUrl(ServerMetrics.userServiceUrl)
+    .acceptHeader("text/event-stream")
+    .disableCaching
+
+  val userFeeder = Iterator.from(1).map(i => Map("ID" -> f"fanout-user-$i%06d"))
+
+  val listenScenario = scenario("Fan-out Listeners")
+    .feed(userFeeder)
+    .exec(
+      sse("Connect")
+        .get("/api/user/sse/connect?userId=#{ID}")
+        .await(30 seconds)(
+          sse.checkMessage("Connected").matching(jsonPath("$.event").is("CONNECTED")).check(jsonPath("$.event").is("CONNECTED"))
+        )
+    )
+    .exec(
+      sse("Receive Broadcast").setCheck
+        .await((rampSeconds + 60) seconds)(
+          sse.checkMessage("Broadcast").matching(jsonPath("$.event").is("MESSAGE")).check(jsonPath("$.event").is("MESSAGE"))
+        )
+    )
+    .exec(sse("Close Connection").close)
+
+  val broadcastScenario = scenario("ALL Broadcaster")
+    .exec { session =>
+      beforeBroadcast = metrics.snapshot(meters)
+      session
+    }
+    .exec(
+      http("Create ALL Broadcast")
+        .post(s"${ServerMetrics.adminServiceUrl}/api/broadcasts")
+        .header("Content-Type", "application/json")
+        .body(StringBody(
+          """
+          {
+            "senderId": "gatling-admin",
+            "senderName": "Gatling Fan-out Test",
+            "content": "Fan-out test message",
+            "targetType": "ALL",
+            "isImmediate": true
+          }
+        """)).asJson
+        .check(status.is(200))
+    )
+    // Long enough for every listener to receive the broadcast and the written counter to settle.
+    .pause(20 seconds)
+    .exec { session =>
+      afterBroadcast = metrics.snapshot(meters)
+      session
+    }
+
+  after {
+    metrics.printDelta(s"Fan-out of one 'ALL' broadcast to $connections connections", beforeBroadcast, afterBroadcast)
+    if (afterBroadcast.nonEmpty) {
+      println(f"Allocated bytes per connection: ${(afterBroadcast(allocated) - beforeBroadcast(allocated)) / connections}%,.1f")
+    }
+  }
+
+  setUp(
+    listenScenario.inject(rampUsers(connections).during(rampSeconds seconds)),
+    broadcastScenario.inject(
+      nothingFor((rampSeconds + 10) seconds),
+      atOnceUsers(1)
+    )
+  ).protocols(httpProtocol)
+}
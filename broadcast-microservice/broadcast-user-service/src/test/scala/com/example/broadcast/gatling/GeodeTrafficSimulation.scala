@@ -0,0 +1,105 @@
+package com.example.broadcast.gatling
+
+import io.gatling.core.Predef._
+import io.gatling.http.Predef._
+import scala.concurrent.duration._
+import scala.language.postfixOps
+
+/**
+ * A mix of the requests that go through Geode: connection registration, a targeted broadcast delivered
+ * through the pod regions, inbox reads and a read receipt. Reports the bytes the user service allocated
+ * per Geode request, next to the latencies in the Gatling report. Run it against the builds before and
+ * after the PDX wire format, with the Geode servers restarted on the matching cache.xml, to compare the
+ * cost of serialization on the same traffic.
+ */
+class GeodeTrafficSimulation extends Simulation {
+
+  private val users = Integer.getInteger("users", 500).intValue
+  private val iterations = Integer.getInteger("iterations", 10).intValue
+
+  private val metrics = new ServerMetrics(ServerMetrics.userServiceUrl)
+  private val allocated = Meter("jvm.gc.memory.allocated")
+  // Summed over every region and operation the service sends to the Geode servers.
+  private val roundTrips = Meter("broadcast.cache.round.trips")
+  @volatile private var start: Map[Meter, Double] = Map.empty
+
+  val httpProtocol = http
+    .baseUrl(ServerMetrics.userServiceUrl)
+    .acceptHeader("text/event-stream")
+    .disableCaching
+
+  val userFeeder = Iterator.from(1).map(i => Map("ID" -> f"geode-user-$i%05d"))
+
+  val trafficScenario = scenario("Geode Traffic")
+    .feed(userFeeder)
+    .exec(
+      sse("Connect")
+        .get("/api/user/sse/connect?userId=#{ID}")
+        .await(30 seconds)(
+          sse.checkMessage("Connected").matching(jsonPath("$.event").is("CONNECTED")).check(jsonPath("$.event").is("CONNECTED"))
+        )
+    )
+    .repeat(iterations) {
+      exec(
+        http("Create Targeted Broadcast")
+          .post(s"${ServerMetrics.adminServiceUrl}/api/broadcasts")
+          .header("Content-Type", "application/json")
+          .body(StringBody(
+            """
+            {
+              "senderId": "gatling-admin",
+              "senderName": "Gatling Geode Traffic Test",
+              "content": "Geode traffic test message for #{ID}",
+              "targetType": "SELECTED",
+              "targetIds": ["#{ID}"],
+              "isImmediate": true
+            }
+          """)).asJson
+          .check(status.is(200))
+      )
+      .exec(
+        sse("Receive Broadcast").setCheck
+          .await(10 seconds)(
+            sse.checkMessage("Broadcast")
+              .matching(jsonPath("$.event").is("MESSAGE"))
+              // The event data is JSON carried as a string, so its quotes arrive escaped.
+              .check(regex("""broadcastId\\?":(\d+)""").saveAs("broadcastId"))
+          )
+      )
+      .exec(
+        http("Read Inbox")
+          .get("/api/user/messages?userId=#{ID}")
+          .header("Accept", "application/json")
+          .check(status.is(200))
+      )
+      .exec(
+        http("Mark Read")
+          .post("/api/user/messages/read")
+          .header("Content-Type", "application/json")
+          .body(StringBody("""{ "userId": "#{ID}", "broadcastId": #{broadcastId} }""")).asJson
+          .check(status.is(200))
+      )
+      .pause(500 milliseconds)
+    }
+    .exec(sse("Close Connection").close)
+
+  before {
+    start = metrics.snapshot(Seq(allocated, roundTrips))
+  }
+
+  after {
+    val end = metrics.snapshot(Seq(allocated, roundTrips))
+    val allocatedBytes = end(allocated) - start(allocated)
+    val calls = end(roundTrips) - start(roundTrips)
+    println(s"---- $users users x $iterations deliveries, inbox reads and read receipts ----")
+    println(f"Allocated (bytes):                 $allocatedBytes%,.0f")
+    if (calls > 0) {
+      println(f"Geode requests:                    $calls%,.0f")
+      println(f"Allocated per Geode request:       ${allocatedBytes / calls}%,.0f")
+    }
+  }
+
+  setUp(
+    trafficScenario.inject(rampUsers(users).during(30 seconds))
+  ).protocols(httpProtocol)
+}
@@ -0,0 +1,76 @@
+package com.example.broadcast.gatling
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import java.net.URI
+import java.net.http.{HttpClient, HttpRequest, HttpResponse}
+import java.security.cert.X509Certificate
+import javax.net.ssl.{SSLContext, TrustManager, X509TrustManager}
+
+/**
+ * A meter of the service under test, as exposed by its actuator metrics endpoint.
+ * @param tags Tag filters in the endpoint's "key:value" form.
+ */
+case class Meter(name: String, statistic: String = "COUNT", tags: Seq[String] = Nil) {
+  override def toString: String = (name +: tags).mkString(" ") + s" [$statistic]"
+}
+
+/**
+ * Reads meters from a service while a simulation runs, so that it can report what the server spent
+ * (allocations, encodings, Geode calls) next to the latencies Gatling measures.
+ */
+class ServerMetrics(baseUrl: String) {
+
+  private val objectMapper = new ObjectMapper()
+  private val client = HttpClient.newBuilder().sslContext(ServerMetrics.trustAll).build()
+
+  /**
+   * @return The current value of the meter, or 0 if the service has not registered it (e.g. an older build).
+   */
+  def read(meter: Meter): Double = {
+    val query = if (meter.tags.isEmpty) "" else meter.tags.map(tag => s"tag=$tag").mkString("?", "&", "")
+    val request = HttpRequest.newBuilder(URI.create(s"$baseUrl/actuator/metrics/${meter.name}$query")).GET().build()
+    val response = client.send(request, HttpResponse.BodyHandlers.ofString())
+    if (response.statusCode() != 200) {
+      0.0
+    } else {
+      val measurements = objectMapper.readTree(response.body()).path("measurements")
+      (0 until measurements.size())
+        .map(measurements.get)
+        .find(_.path("statistic").asText() == meter.statistic)
+        .map(_.path("value").asDouble())
+        .getOrElse(0.0)
+    }
+  }
+
+  def snapshot(meters: Seq[Meter]): Map[Meter, Double] = meters.map(meter => meter -> read(meter)).toMap
+
+  /**
+   * Prints how much each meter grew between two snapshots.
+   */
+  def printDelta(title: String, before: Map[Meter, Double], after: Map[Meter, Double]): Unit = {
+    println(s"---- $title ----")
+    after.keys.toSeq.sortBy(_.toString).foreach { meter =>
+      println(f"$meter%-70s ${after(meter) - before.getOrElse(meter, 0.0)}%,.0f")
+    }
+  }
+}
+
+object ServerMetrics {
+
+  // Overridable with -DuserServiceUrl / -DadminServiceUrl to run against a deployed cluster.
+  val userServiceUrl: String = sys.props.getOrElse("userServiceUrl", "https://localhost:8082")
+  val adminServiceUrl: String = sys.props.getOrElse("adminServiceUrl", "https://localhost:8081")
+
+  // The services use a self-signed certificate in development.
+  System.setProperty("jdk.internal.httpclient.disableHostnameVerification", "true")
+  private val trustAll: SSLContext = {
+    val trustManager = new X509TrustManager {
+      override def checkClientTrusted(chain: Array[X509Certificate], authType: String): Unit = ()
+      override def checkServerTrusted(chain: Array[X509Certificate], authType: String): Unit = ()
+      override def getAcceptedIssuers: Array[X509Certificate] = Array.empty
+    }
+    val context = SSLContext.getInstance("TLS")
+    context.init(null, Array[TrustManager](trustManager), null)
+    context
+  }
+}
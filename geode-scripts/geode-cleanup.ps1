@@ -15,13 +15,14 @@ $LocatorAddress = "localhost[10334]"
 $replicatedRegions = @(
     "broadcast-content",
     "connection-heartbeat",
+    "pod-status",
     "sse-user-messages",
     "sse-group-messages"
-    "user-connections"
 )
 
 # List of all partitioned regions to be cleared
 $partitionedRegions = @(
+    "user-connections",
     "user-messages-inbox"
 )
 